@@ -0,0 +1,122 @@
+package aodv.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Loading topology files and the graph and routing table lookups that route discovery and forwarding make on every hop
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"100", "1000", "10000"})
+    int nodes;
+
+    @Param({"4", "8", "16"})
+    int degree;
+
+    Object graph;
+    Path edgeFile;
+
+    // Pairs of linked nodes and pairs of nodes that may or may not be linked, for the edge lookups
+    Object[] linkedSources;
+    Object[] linkedDestinations;
+    Object[] randomSources;
+    Object[] randomDestinations;
+
+    // The first hop of every discovered route, for the routing table lookups
+    Object[] routeSources;
+    Object[] routeDestinations;
+    int pair;
+
+    @Setup(Level.Trial)
+    public void createTopology() throws IOException {
+        graph = Simulation.generate("unit-disk:" + nodes + ":" + degree + ":42");
+        edgeFile = Files.createTempFile("aodv-benchmark", ".txt");
+        Simulation.writeEdgeList(graph, edgeFile);
+
+        Object[][] random = Simulation.randomPairs(graph, PAIRS, 11);
+        randomSources = random[0];
+        randomDestinations = random[1];
+        linkedSources = new Object[PAIRS];
+        linkedDestinations = new Object[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            java.util.List<?> neighbours = Simulation.neighboursOf(graph, randomSources[i]);
+            linkedSources[i] = randomSources[i];
+            linkedDestinations[i] = neighbours.isEmpty() ? randomDestinations[i] : neighbours.get(i % neighbours.size());
+        }
+
+        Object aodv = Simulation.newAodv(graph);
+        routeSources = new Object[PAIRS];
+        routeDestinations = new Object[PAIRS];
+        int routes = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (Simulation.isFound(Simulation.findRoute(aodv, randomSources[i], randomDestinations[i]))) {
+                routeSources[routes] = randomSources[i];
+                routeDestinations[routes++] = randomDestinations[i];
+            }
+        }
+        Simulation.closeAodv(aodv);
+        for (int i = routes; i < PAIRS; i++) { // Repeating the routes found if some pairs are not connected
+            routeSources[i] = routeSources[i % Math.max(routes, 1)];
+            routeDestinations[i] = routeDestinations[i % Math.max(routes, 1)];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteEdgeFile() throws IOException {
+        Files.deleteIfExists(edgeFile);
+    }
+
+    private int nextPair() {
+        pair = (pair + 1) & (PAIRS - 1);
+        return pair;
+    }
+
+    // Parsing the whole edge list into a new graph, the operation count is one per file
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object generateGraph() {
+        return Simulation.loadGraph(edgeFile.toString());
+    }
+
+    @Benchmark
+    public boolean containsEdgeLinked() {
+        int i = nextPair();
+        return Simulation.containsEdge(graph, linkedSources[i], linkedDestinations[i]);
+    }
+
+    @Benchmark
+    public boolean containsEdgeRandom() {
+        int i = nextPair();
+        return Simulation.containsEdge(graph, randomSources[i], randomDestinations[i]);
+    }
+
+    @Benchmark
+    public Object getForwardPathTo() {
+        int i = nextPair();
+        return Simulation.forwardPathTo(routeSources[i], routeDestinations[i]);
+    }
+}
@@ -0,0 +1,149 @@
+package aodv.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Route discovery, data forwarding and route error recovery on unit disk topologies of different sizes and densities
+// Cold benchmarks start every discovery with empty routing tables, warm ones reuse the routes of earlier discoveries
+// Every scenario is its own state class, because JMH would create a second graph for a helper state that depends on
+// the benchmark state
+public class RoutingBenchmark {
+
+    private static final int PAIRS = 256; // The source and destination pairs the benchmarks cycle through
+
+    // The topology and the pairs of nodes routes are looked for between, shared by the scenarios
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    @State(Scope.Thread)
+    public abstract static class Network {
+
+        @Param({"100", "1000", "10000"})
+        int nodes;
+
+        @Param({"4", "8", "16"})
+        int degree;
+
+        Object graph;
+        Object aodv;
+        Object[] sources;
+        Object[] destinations;
+        int pair;
+
+        @Setup(Level.Trial)
+        public void createTopology() {
+            graph = Simulation.generate("unit-disk:" + nodes + ":" + degree + ":42");
+            aodv = Simulation.newAodv(graph);
+            Object[][] pairs = Simulation.randomPairs(graph, PAIRS, 7);
+            sources = pairs[0];
+            destinations = pairs[1];
+        }
+
+        @TearDown(Level.Trial)
+        public void closeAodv() {
+            Simulation.closeAodv(aodv);
+        }
+
+        int nextPair() {
+            pair = (pair + 1) & (PAIRS - 1);
+            return pair;
+        }
+    }
+
+    // Every pair is discovered once before each iteration, so the benchmarks find the routes in the tables
+    @State(Scope.Thread)
+    public static class Warm extends Network {
+
+        @Setup(Level.Iteration)
+        public void warmRoutes() {
+            Simulation.clearRoutes(graph);
+            for (int i = 0; i < PAIRS; i++) {
+                Simulation.findRoute(aodv, sources[i], destinations[i]);
+            }
+        }
+
+        @Benchmark
+        public Object findRoute() {
+            int i = nextPair();
+            return Simulation.findRoute(aodv, sources[i], destinations[i]);
+        }
+
+        @Benchmark
+        public Object sendData() {
+            int i = nextPair();
+            return Simulation.sendData(aodv, sources[i], destinations[i], false);
+        }
+    }
+
+    // The routing tables are emptied before every invocation, so every route is discovered by flooding the network
+    @State(Scope.Thread)
+    public static class Cold extends Network {
+
+        @Setup(Level.Invocation)
+        public void clearRoutes() {
+            Simulation.clearRoutes(graph);
+        }
+
+        @Benchmark
+        public Object findRoute() {
+            int i = nextPair();
+            return Simulation.findRoute(aodv, sources[i], destinations[i]);
+        }
+    }
+
+    // A route is discovered and a link in the middle of it broken before every invocation, and repaired afterwards
+    @State(Scope.Thread)
+    public static class RouteError extends Network {
+
+        Object brokenFrom;
+        Object brokenTo;
+
+        // Routes of a single hop are skipped, breaking a link in the middle means the route error travels back over
+        // part of the route as well as invalidating the part after the break
+        @Setup(Level.Invocation)
+        public void breakRoute() {
+            for (int attempt = 0; attempt < PAIRS && brokenFrom == null; attempt++) {
+                Simulation.clearRoutes(graph);
+                int i = nextPair();
+                List<?> path = Simulation.pathOf(Simulation.findRoute(aodv, sources[i], destinations[i]));
+                if (path.size() > 2) {
+                    brokenFrom = path.get(path.size() / 2);
+                    brokenTo = path.get(path.size() / 2 + 1);
+                    Simulation.removeEdge(graph, brokenFrom, brokenTo);
+                }
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void repairRoute() {
+            if (brokenFrom != null) {
+                Simulation.addEdge(graph, brokenFrom, brokenTo);
+                brokenFrom = null;
+                brokenTo = null;
+            }
+        }
+
+        // Sending over the broken route, which raises the route error, and discovering the route again
+        @Benchmark
+        public Object recover() {
+            Simulation.sendData(aodv, sources[pair], destinations[pair], true);
+            return Simulation.findRoute(aodv, sources[pair], destinations[pair]);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package aodv.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Access to the simulator classes for the benchmarks
+// The simulator lives in the default package, which code in a named package can not refer to, and JMH does not accept
+// benchmarks in the default package, so the simulator methods are bound once as method handles with Object types
+// The handles are static final and called with invokeExact, so the JIT inlines them like direct calls
+final class Simulation {
+
+    private static final MethodHandle GENERATE = staticMethod("TopologyGenerator", "fromSpecification", "Graph", String.class);
+    private static final MethodHandle NEW_GRAPH = constructor("Graph");
+    private static final MethodHandle NEW_AODV = constructor("AODV", "Graph", "GUI");
+    private static final MethodHandle GET_LOG = method("AODV", "getLog", "RoutingLog");
+    private static final MethodHandle CLOSE_AODV = method("AODV", "close", void.class);
+    private static final MethodHandle SET_LEVEL = method("RoutingLog", "setLevel", void.class, "LogLevel");
+    private static final MethodHandle FIND_ROUTE = method("AODV", "findRoute", "RouteResult", "Node", "Node");
+    private static final MethodHandle SEND_DATA = method("AODV", "sendData", "RouteResult", "Node", "Node", boolean.class);
+    private static final MethodHandle IS_FOUND = method("RouteResult", "isFound", boolean.class);
+    private static final MethodHandle GET_PATH = method("RouteResult", "getPath", List.class);
+    private static final MethodHandle GENERATE_GRAPH = method("Graph", "generateGraph", "LoadReport", String.class);
+    private static final MethodHandle GET_ALL_NODES = method("Graph", "getAllNodes", Set.class);
+    private static final MethodHandle GET_NODE = method("Graph", "getNode", "Node", String.class);
+    private static final MethodHandle GET_NEIGHBOURS = method("Graph", "getNeighboursOf", ArrayList.class, "Node");
+    private static final MethodHandle GET_EDGES = method("Graph", "getEdges", Set.class);
+    private static final MethodHandle CONTAINS_EDGE = method("Graph", "containsEdge", boolean.class, "Node", "Node");
+    private static final MethodHandle ADD_EDGE = method("Graph", "addEdge", boolean.class, "Node", "Node");
+    private static final MethodHandle REMOVE_EDGE = method("Graph", "removeEdge", boolean.class, "Node", "Node");
+    private static final MethodHandle GET_FORWARD_PATH_TO = method("Node", "getForwardPathTo", "RoutingTable", "Node");
+    private static final MethodHandle EDGE_SOURCE = method("Edge", "getSource", "Node");
+    private static final MethodHandle EDGE_DESTINATION = method("Edge", "getDestination", "Node");
+    private static final MethodHandle FORWARD_PATH = getter("Node", "forwardPath");
+    private static final MethodHandle REVERSE_PATH = getter("Node", "reversePath");
+    private static final MethodHandle SET_SEQUENCE_NUM = setter("Node", "sequenceNum");
+    private static final MethodHandle CLEAR_TABLE = method("RouteTable", "clear", void.class);
+    private static final Object LOG_OFF = enumConstant("LogLevel", "OFF");
+
+    private Simulation() {
+    }
+
+    // Method for generating a topology, see TopologyGenerator.fromSpecification() for the specification
+    static Object generate(String specification) {
+        try {
+            return (Object) GENERATE.invokeExact(specification);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // Method for creating a headless aodv instance with logging turned off, so the benchmarks measure only the routing
+    static Object newAodv(Object graph) {
+        try {
+            Object aodv = (Object) NEW_AODV.invokeExact(graph, (Object) null);
+            SET_LEVEL.invokeExact((Object) GET_LOG.invokeExact(aodv), LOG_OFF);
+            return aodv;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // Method for stopping the log drain of an aodv instance, so that every trial does not leave a drain task behind
+    static void closeAodv(Object aodv) {
+        try {
+            CLOSE_AODV.invokeExact(aodv);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object findRoute(Object aodv, Object source, Object destination) {
+        try {
+            return (Object) FIND_ROUTE.invokeExact(aodv, source, destination);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object sendData(Object aodv, Object source, Object destination, boolean handleError) {
+        try {
+            return (Object) SEND_DATA.invokeExact(aodv, source, destination, handleError);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static boolean isFound(Object routeResult) {
+        try {
+            return (boolean) IS_FOUND.invokeExact(routeResult);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static List<?> pathOf(Object routeResult) {
+        try {
+            return (List<?>) GET_PATH.invokeExact(routeResult);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // Method for loading an edge list file into a new graph, returns the load report
+    static Object loadGraph(String file) {
+        try {
+            Object graph = (Object) NEW_GRAPH.invokeExact();
+            return (Object) GENERATE_GRAPH.invokeExact(graph, file);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object[] nodesOf(Object graph) {
+        try {
+            return ((Set<?>) GET_ALL_NODES.invokeExact(graph)).toArray();
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object nodeOf(Object graph, String identifier) {
+        try {
+            return (Object) GET_NODE.invokeExact(graph, identifier);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static List<?> neighboursOf(Object graph, Object node) {
+        try {
+            return (ArrayList<?>) GET_NEIGHBOURS.invokeExact(graph, node);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static boolean containsEdge(Object graph, Object source, Object destination) {
+        try {
+            return (boolean) CONTAINS_EDGE.invokeExact(graph, source, destination);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void addEdge(Object graph, Object source, Object destination) {
+        try {
+            boolean added = (boolean) ADD_EDGE.invokeExact(graph, source, destination);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static void removeEdge(Object graph, Object source, Object destination) {
+        try {
+            boolean removed = (boolean) REMOVE_EDGE.invokeExact(graph, source, destination);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    static Object forwardPathTo(Object node, Object destination) {
+        try {
+            return (Object) GET_FORWARD_PATH_TO.invokeExact(node, destination);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // Method for emptying the routing tables and resetting the sequence numbers of every node like a route error does,
+    // so the next discovery starts from a cold route cache and every iteration sees the same state
+    static void clearRoutes(Object graph) {
+        try {
+            for (Object node : nodesOf(graph)) {
+                CLEAR_TABLE.invokeExact((Object) FORWARD_PATH.invokeExact(node));
+                CLEAR_TABLE.invokeExact((Object) REVERSE_PATH.invokeExact(node));
+                SET_SEQUENCE_NUM.invokeExact(node, 0);
+            }
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // Method for writing the edges of a graph as an edge list file that generateGraph() can load
+    static void writeEdgeList(Object graph, java.nio.file.Path file) throws java.io.IOException {
+        try (java.io.BufferedWriter writer = java.nio.file.Files.newBufferedWriter(file)) {
+            for (Object edge : (Set<?>) GET_EDGES.invokeExact(graph)) {
+                writer.write((Object) EDGE_SOURCE.invokeExact(edge) + " " + (Object) EDGE_DESTINATION.invokeExact(edge));
+                writer.newLine();
+            }
+        } catch (java.io.IOException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    // Method for picking random pairs of distinct nodes, returned as sources[i] and destinations[i]
+    static Object[][] randomPairs(Object graph, int pairs, long seed) {
+        Object[] nodes = nodesOf(graph);
+        java.util.Arrays.sort(nodes, java.util.Comparator.comparing(Object::toString)); // The set order is not deterministic across runs
+        SplittableRandom random = new SplittableRandom(seed);
+        Object[][] result = new Object[2][pairs];
+        for (int i = 0; i < pairs; i++) {
+            int source = random.nextInt(nodes.length);
+            int destination = random.nextInt(nodes.length - 1);
+            result[0][i] = nodes[source];
+            result[1][i] = nodes[destination >= source ? destination + 1 : destination];
+        }
+        return result;
+    }
+
+    private static Class<?> type(Object type) {
+        if (type instanceof Class<?> c) {
+            return c;
+        }
+        try {
+            return Class.forName((String) type);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The simulator class " + type + " is not on the class path", e);
+        }
+    }
+
+    private static Class<?>[] types(Object... types) {
+        Class<?>[] classes = new Class<?>[types.length];
+        for (int i = 0; i < types.length; i++) {
+            classes[i] = type(types[i]);
+        }
+        return classes;
+    }
+
+    // Method for replacing the simulator classes in the type of a handle with Object, so it can be called with invokeExact
+    // from here, the primitive and JDK types stay as they are
+    private static MethodHandle generic(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isSimulatorClass(type.parameterType(i))) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (isSimulatorClass(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    private static boolean isSimulatorClass(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type.getPackageName().isEmpty();
+    }
+
+    // The lookups are private lookups so that package private members of the simulator can be reached as well
+    private static MethodHandles.Lookup lookupIn(Class<?> owner) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+    }
+
+    private static MethodHandle method(String owner, String name, Object returnType, Object... parameterTypes) {
+        try {
+            Class<?> ownerClass = type(owner);
+            return generic(lookupIn(ownerClass).findVirtual(ownerClass, name, MethodType.methodType(type(returnType), types(parameterTypes))));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The simulator has no method " + owner + "." + name, e);
+        }
+    }
+
+    private static MethodHandle staticMethod(String owner, String name, Object returnType, Object... parameterTypes) {
+        try {
+            Class<?> ownerClass = type(owner);
+            return generic(lookupIn(ownerClass).findStatic(ownerClass, name, MethodType.methodType(type(returnType), types(parameterTypes))));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The simulator has no method " + owner + "." + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String owner, Object... parameterTypes) {
+        try {
+            Class<?> ownerClass = type(owner);
+            return generic(lookupIn(ownerClass).findConstructor(ownerClass, MethodType.methodType(void.class, types(parameterTypes))));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The simulator has no constructor " + owner, e);
+        }
+    }
+
+    private static MethodHandle getter(String owner, String field) {
+        try {
+            Class<?> ownerClass = type(owner);
+            return generic(lookupIn(ownerClass).findGetter(ownerClass, field, ownerClass.getDeclaredField(field).getType()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The simulator has no field " + owner + "." + field, e);
+        }
+    }
+
+    private static MethodHandle setter(String owner, String field) {
+        try {
+            Class<?> ownerClass = type(owner);
+            return generic(lookupIn(ownerClass).findSetter(ownerClass, field, ownerClass.getDeclaredField(field).getType()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The simulator has no field " + owner + "." + field, e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumConstant(String owner, String name) {
+        return Enum.valueOf((Class) type(owner), name);
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(e);
+    }
+}
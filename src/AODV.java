@@ -1,75 +1,316 @@
 import java.util.ArrayList;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.*;
 
 public class AODV {
 
-    private Map<Integer, RouteRequest> routeRequests;
-    private int broadcastId;
+    static final int MAX_REPAIR_TTL = 10; // 0.3 * NET_DIAMETER of rfc 3561, longer routes are not repaired locally
+    static final int LOCAL_ADD_TTL = 2; // The hops a local repair searches beyond the distance the destination used to be at
+    static final int TTL_START = 1; // The expanding ring search values of rfc 3561
+    static final int TTL_INCREMENT = 2;
+    static final int TTL_THRESHOLD = 7;
+
+    private AtomicInteger broadcastId;
     private Graph graph;
     private GUI gui;
-
+    private RoutingLog log; // The log for the routing decisions, drained to the gui or the console in batches
+    private ProtocolMetrics metrics; // What the protocol did, for jmx and the metrics reporter
+    private volatile boolean localRepair; // Whether a node that detects a link break first tries to find the destination itself
+    // Expires the routes that were not used for the active route timeout on the wall clock, off unless asked for, since the
+    // routes a workload finds would otherwise depend on how fast it runs
+    private RouteLifetimes lifetimes;
+    private volatile boolean expandingRingSearch; // Whether findRoute() searches rings of growing time to live before flooding
+    private volatile int ttlStart;
+    private volatile int ttlIncrement;
+    private volatile int ttlThreshold; // A ring wider than this is replaced by a flood of the whole network
+    private FloodCost floodCost; // For comparing the ring searches with network wide floods in the metrics
+    private volatile boolean floodComparison; // Whether the metrics compare every ring search with a flood, off since it costs a walk of the graph
+    // How many rreqs each node may originate per second on the wall clock, off unless asked for, since a synchronous query
+    // cannot wait for the limit and the outcome of back to back queries would depend on how fast they run
+    private RequestRateLimiter rateLimiter;
+    private ThreadLocal<FloodEngine> floodEngines; // The reusable working memory of the rreq floods of each discovery thread
+
+    // findRoute() keeps all the discovery scoped state in a RouteDiscovery and the routing tables are synchronized,
+    // so several discoveries can run in parallel on the same graph as long as the topology is not changed meanwhile
     public AODV(Graph graph, GUI gui) {
-        broadcastId = 0;
-        routeRequests = new HashMap<>();
+        broadcastId = new AtomicInteger();
         this.graph = graph;
         this.gui = gui;
+        this.log = new RoutingLog(gui != null ? lines -> SwingUtilities.invokeLater(() -> gui.appendLogs(lines)) : AODV::printLogs, LogLevel.DEBUG);
+        this.log.start(RoutingLog.DEFAULT_DRAIN_PERIOD_MS);
+        this.metrics = new ProtocolMetrics(graph);
+        this.lifetimes = new RouteLifetimes(RouteClock.WALL, metrics.expiredRoutes);
+        this.lifetimes.setActiveRouteTimeout(0);
+        this.expandingRingSearch = true;
+        this.ttlStart = TTL_START;
+        this.ttlIncrement = TTL_INCREMENT;
+        this.ttlThreshold = TTL_THRESHOLD;
+        this.floodCost = new FloodCost(graph);
+        this.rateLimiter = new RequestRateLimiter(RouteClock.WALL, 0);
+        this.floodEngines = ThreadLocal.withInitial(FloodEngine::new);
+    }
+
+    public RoutingLog getLog() {
+        return log;
+    }
+
+    // Method for stopping the background draining of the log once the instance is no longer used, the routing decisions
+    // still buffered are handed to the sink before this returns, since the drainer thread does not keep the program alive
+    public void close() {
+        log.stop();
+    }
+
+    public ProtocolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isLocalRepair() {
+        return localRepair;
+    }
+
+    public void setLocalRepair(boolean localRepair) {
+        this.localRepair = localRepair;
+    }
+
+    public boolean isExpandingRingSearch() {
+        return expandingRingSearch;
+    }
+
+    // Method for turning the expanding ring search off, every rreq then floods the whole network at once
+    public void setExpandingRingSearch(boolean expandingRingSearch) {
+        this.expandingRingSearch = expandingRingSearch;
+    }
+
+    public boolean isFloodComparison() {
+        return floodComparison;
+    }
+
+    // Method for letting the metrics compare the rreqs of every ring search with what flooding the component of the source costs
+    public void setFloodComparison(boolean floodComparison) {
+        this.floodComparison = floodComparison;
+    }
+
+    // Method for changing the time to live of the first ring, how much every retry widens it and the widest ring before a full flood
+    public void setRingSearchTtls(int ttlStart, int ttlIncrement, int ttlThreshold) {
+        if(ttlStart < 1 || ttlIncrement < 1 || ttlThreshold < ttlStart) {
+            throw new IllegalArgumentException("Invalid ring search ttls " + ttlStart + ", " + ttlIncrement + ", " + ttlThreshold);
+        }
+        this.ttlStart = ttlStart;
+        this.ttlIncrement = ttlIncrement;
+        this.ttlThreshold = ttlThreshold;
+    }
+
+    public int getRequestRateLimit() {
+        return rateLimiter.getLimit();
+    }
+
+    // Method for changing how many rreqs a node may originate per second, e.g. RequestRateLimiter.RREQ_RATELIMIT, 0 turns the limit off
+    public void setRequestRateLimit(int requestsPerSecond) {
+        rateLimiter.setLimit(requestsPerSecond);
+    }
+
+    // Method for changing how many microseconds a route lives after it was last used, 0 keeps routes until they break
+    public void setActiveRouteTimeout(long activeRouteTimeout) {
+        lifetimes.setActiveRouteTimeout(activeRouteTimeout);
+    }
+
+    // Method for removing the routes whose lifetime has run out and keeping the others until releaseExpiry() is called,
+    // for running discoveries in parallel without one removing the routes another is walking along
+    void holdExpiry() {
+        lifetimes.expireRoutes();
+        lifetimes.hold();
+    }
+
+    void releaseExpiry() {
+        lifetimes.release();
+    }
+
+    public RouteResult findRoute(Node source, Node destination) {
+        return findRoute(source, destination, null, DiscoveryListener.NONE);
+    }
+
+    // Overloaded method that reports the progress of the discovery to the listener, which can also cancel it
+    public RouteResult findRoute(Node source, Node destination, DiscoveryListener listener) {
+        return findRoute(source, destination, null, listener);
+    }
+
+    // Overloaded method that also adds the control messages used by the discovery to the given result
+    RouteResult findRoute(Node source, Node destination, RouteQueryResult result) {
+        return findRoute(source, destination, result, DiscoveryListener.NONE);
     }
 
-    public String findRoute(Node source, Node destination) {
+    RouteResult findRoute(Node source, Node destination, RouteQueryResult result, DiscoveryListener listener) {
+        lifetimes.expireRoutes(); // Removing the routes that were not used for too long before looking for one
 
         // Checking if source already has a path to desyination
 
         if(source.getForwardPathTo(destination) != null) {
-            log(source + " already has a fresh route to " + destination);
-            log("Data Transfer Starts from " + source + " to " + destination);
+            log.info("{} already has a fresh route to {}", source, destination);
+            metrics.cachedRoutes.increment();
+            log.info("Data Transfer Starts from {} to {}", source, destination);
             // handling the data transfer
-            return handleDataTransfer(source, destination, null);
+            return handleDataTransfer(source, destination, null, result, listener);
         }
 
         RouteRequest routeRequest = getRouteRequest(source, destination);
 
         if(routeRequest == null) {
-            log("Route Request Not found!");
-            return null;
+            log.warn("Route Request Not found!");
+            return RouteResult.invalidRequest();
+        }
+
+        // The discovery cannot wait for the rate limit like a node would, so the query fails and can be repeated later
+        if(!mayOriginate(source)) {
+            return RouteResult.rateLimited();
+        }
+
+        if(expandingRingSearch) {
+            return searchRings(routeRequest, result, listener);
+        }
+        return discover(new RouteDiscovery(routeRequest), result, listener);
+    }
+
+    // Method for finding a route with an expanding ring search (rfc 3561 section 6.4)
+    // The first rreq travels ttlStart hops and every retry widens the ring by ttlIncrement hops, a ring wider than
+    // ttlThreshold is replaced by a flood of the whole network, so nearby destinations are found without flooding everything
+    // A ring in which the rreq never ran out of hops has already reached the whole component and the search ends there
+    private RouteResult searchRings(RouteRequest routeRequest, RouteQueryResult result, DiscoveryListener listener) {
+        Node source = routeRequest.source;
+        Node destination = routeRequest.destination;
+        int increment = ttlIncrement;
+        int threshold = ttlThreshold;
+        long routeRequests = 0; // The rreq transmissions of all the rings, for the metrics
+        int timeToLive = ttlStart;
+        RouteResult route;
+        while(true) {
+            routeRequest.timeToLive = timeToLive > threshold ? Integer.MAX_VALUE : timeToLive;
+            RouteDiscovery discovery = new RouteDiscovery(routeRequest);
+            route = discover(discovery, result, listener);
+            routeRequests += discovery.routeRequests;
+            if(route.getStatus() != RouteResult.Status.UNREACHABLE || !discovery.timeToLiveReached) {
+                break;
+            }
+            timeToLive += increment;
+            log.info("{} is not within {} hops, widening the ring", destination, routeRequest.timeToLive);
+            metrics.ringRetries.increment();
+            routeRequest = createRouteRequest(source, destination);
+            if(routeRequest == null) {
+                return RouteResult.invalidRequest(); // The topology changed while the previous ring was searched
+            }
+            if(!mayOriginate(source)) {
+                route = RouteResult.rateLimited(); // Every ring is a rreq of its own
+                break;
+            }
         }
+        recordRingSearch(source, routeRequests);
+        return route;
+    }
+
+    // Method for adding the rreqs the rings of a search sent to the metrics, and if asked for next to what flooding the
+    // whole component of the source would have cost, which is only computed again after the topology changed
+    private void recordRingSearch(Node source, long routeRequests) {
+        metrics.ringSearches.increment();
+        metrics.ringControlMessages.add(routeRequests);
+        if(floodComparison) {
+            metrics.comparedRingControlMessages.add(routeRequests);
+            metrics.floodControlMessages.add(floodCost.ofComponent(source));
+        }
+    }
+
+    // Method for taking a rreq from the rate limit of the node that is about to originate it, counting the ones it refuses
+    private boolean mayOriginate(Node originator) {
+        if(rateLimiter.tryAcquire(originator)) {
+            return true;
+        }
+        log.warn("{} HAS REACHED THE RREQ RATE LIMIT!", originator);
+        metrics.rateLimitedRequests.increment();
+        return false;
+    }
+
+    // Method for running the discovery of a route request and recording it in the metrics, shared by findRoute() and local repairs
+    private RouteResult discover(RouteDiscovery discovery, RouteQueryResult result, DiscoveryListener listener) {
+        RouteRequest routeRequest = discovery.routeRequest;
+        RouteResult route = null;
+        long start = System.nanoTime();
+        try {
+            route = discoverRoute(discovery, result, listener);
+            return route;
+        } finally {
+            if(result != null) {
+                result.controlMessages += discovery.controlMessages;
+            }
+            metrics.recordDiscovery(discovery, route, System.nanoTime() - start);
+        }
+    }
+
+    private RouteResult discoverRoute(RouteDiscovery discovery, RouteQueryResult result, DiscoveryListener listener) {
+        FloodEngine flood = floodEngines.get();
+        if(flood.busy) {
+            flood = new FloodEngine(); // A discovery started while the flood of another one is handled, e.g. a local repair
+        }
+        flood.busy = true;
+        try {
+            return discoverRoute(discovery, flood, result, listener);
+        } finally {
+            flood.busy = false;
+        }
+    }
+
+    // Method for flooding the rreq of the discovery breadth first until a node that can reply receives it
+    // The flood keeps its visited nodes, hop counts and queue in the reusable arrays of the engine, so it does not allocate
+    private RouteResult discoverRoute(RouteDiscovery discovery, FloodEngine flood, RouteQueryResult result, DiscoveryListener listener) {
+        RouteRequest routeRequest = discovery.routeRequest;
+        Node source = routeRequest.source;
+        Node destination = routeRequest.destination;
 
         // incrementing the sequence number of the source before it starts to broadcast rreq as per aodv algorithm
-        ++source.sequenceNum;
+        source.incrementSequenceNum();
 
         // Adding the reverse path from source to source itself for logic implementation
-        RoutingTable reversePath = new RoutingTable(source, source, 0, routeRequest.destSequenceNum);
-        source.reversePath.add(reversePath);
+        source.reversePath.update(source, source, 0, routeRequest.sourceSequenceNum);
+        lifetimes.activateReverse(source.reversePath, source);
 
         Node start = source;
 
-        // Creating q queue to hold the intermediary nodes which is used for rreq flooding
-        Queue<Node> intermediaryNodes = new LinkedList<>();
+        // Starting a new flood, the engine holds the queue of the intermediary nodes which is used for rreq flooding
+        flood.begin(graph);
 
-        // Creating an ArrayList to hold the neighbours of current node for processing the rreq
-        ArrayList<Node> neighbours;
+        // The list of nodes involved in finding the route to visualize in the graph, only collected when there is a graph to show it in
+        List<Node> intermediaryPath = null;
+        if(gui != null) {
+            intermediaryPath = new ArrayList<>();
+            discovery.intermediaryPath = intermediaryPath;
+        }
 
-        // Creating a List of nodes to hold the nodes involved in finding the route to visualize in the graph
-        List<Node> intermediaryPath = new ArrayList<>();
+        // The number of nodes that broadcast the rreq so far, reported to the listener as progress
+        int expandedNodes = 0;
 
-        log("Starting to find the route from " + source + " to " + destination);
+        log.info("Starting to find the route from {} to {}", source, destination);
 
         while(start != null) {
-            neighbours = graph.getNeighboursOf(start);
+            // Stopping the flood if the discovery was cancelled
+            if(listener.isCancelled()) {
+                log.warn("Route discovery from {} to {} was cancelled!", source, destination);
+                return RouteResult.cancelled();
+            }
 
-            intermediaryPath.add(start);
+            if(intermediaryPath != null) {
+                intermediaryPath.add(start);
+            }
+            int hopCount = flood.hopCountOf(start) + 1; // The hop count the neighbours receive the rreq with
 
-            for(Node neighbour: neighbours) {
+            for(Node neighbour: flood.neighboursOf(start)) {
+                discovery.controlMessages++; // Every neighbour receives its own copy of the rreq
+                discovery.routeRequests++;
 
                 // Checking if the neighbour has already processed the rreq
-                if(neighbour.processedRequests.contains(routeRequest)) {
-                    log(neighbour + " again received the RREQ! from " + start);
+                if(flood.isVisited(neighbour)) {
+                    log.debug("{} again received the RREQ! from {}", neighbour, start);
 
-                    RoutingTable reversePathToSource = neighbour.getReversePathTo(source);
-
-                    if(((start.hopCount+1) >= reversePathToSource.hopCount)) {
-                        log(neighbour + "'s current hop count is not greater than the previously calculated");
-                        log("Skipping the processing for " + neighbour);
+                    if(hopCount >= neighbour.reversePath.hopCountTo(source)) {
+                        log.debug("{}'s current hop count is not greater than the previously calculated", neighbour);
+                        log.debug("Skipping the processing for {}", neighbour);
                         continue;
                     }
                 }
@@ -77,163 +318,160 @@ public class AODV {
                     if(neighbour.equals(source)) {
                         continue;
                     }
-                    log(neighbour + " received the RREQ from " + start);
-                    log(neighbour + " is processing the RREQ");
+                    log.debug("{} received the RREQ from {}", neighbour, start);
+                    log.debug("{} is processing the RREQ", neighbour);
+                }
+                if(intermediaryPath != null) {
+                    intermediaryPath.add(neighbour);
                 }
-                intermediaryPath.add(neighbour);
-
-                if(neighbour.getReversePathTo(source) == null) {
 
-                    // Creating and adding the reverse path to the source to the neighbour
-                    reversePath = new RoutingTable(source, start, start.hopCount+1, routeRequest.destSequenceNum);
-                    neighbour.reversePath.add(reversePath);
+                // Adding the reverse path to the source to the neighbour, replacing the ones of earlier rreqs of the source
+                if(neighbour.reversePath.update(source, start, hopCount, routeRequest.sourceSequenceNum)) {
+                    lifetimes.activateReverse(neighbour.reversePath, source);
 
-                    log(neighbour + " recorded the reverse path to " + source);
-                    log("Reverse Path: " + reversePath);
+                    log.debug("{} recorded the reverse path to {}", neighbour, source);
                 }
                 else {
-                    log(neighbour + " already has a reverse path to " + source);
-                    log("Reverse Path: " + neighbour.getReversePathTo(source));
-                    log("Skipping adding reverse path");
+                    log.debug("{} already has a shorter reverse path to {}", neighbour, source);
+                    log.debug("Skipping adding reverse path");
+                }
+                if(log.isEnabled(LogLevel.DEBUG)) { // Only looking the route up when it is going to be logged
+                    log.debug("Reverse Path: {}", neighbour.getReversePathTo(source));
                 }
 
-                // Updating the hop count of the neighbour accordingly
-                neighbour.hopCount = start.hopCount+1;
-
-                // add the rreq to the processed requests of the neighbour
-                neighbour.processedRequests.add(routeRequest);
+                // Recording that the neighbour processed the rreq along with its updated hop count
+                flood.visit(neighbour, hopCount);
 
                 // Checking if neighbour is the destination and then sending route reply to source
                 if(neighbour.equals(destination)) {
-                    log(neighbour + " equals destination!");
-                    log(neighbour + " itself is sending RREP!");
-                    ++neighbour.sequenceNum;
-                    sendRouteReply(neighbour);
-                    log("Data Transfer Starts from " + source + " to " + destination);
+                    log.debug("{} equals destination!", neighbour);
+                    log.debug("{} itself is sending RREP!", neighbour);
+                    neighbour.incrementSequenceNum();
+                    sendRouteReply(discovery, neighbour);
+                    log.info("Data Transfer Starts from {} to {}", source, destination);
                     // handling the data transfer
-                    return handleDataTransfer(source, destination, intermediaryPath);
+                    return handleDataTransfer(source, destination, intermediaryPath, result, listener);
                 }
 
-                // Checking if the neighbour has a path to destination through the list of forward paths it has
-                RoutingTable forwardPath = neighbour.getForwardPathTo(destination);
-                log("Checking if " + neighbour + " has a path to the destination " + destination + " with a greater or equal destination sequence number");
-                if(forwardPath != null) {
-                    if(routeRequest.destination.equals(forwardPath.destination) && routeRequest.destSequenceNum <= forwardPath.destSequenceNum) {
-
-                        log(neighbour + " has a path to " + destination);
-                        log("Validating the path!");
-
-                        // Checking if the path has no broken links and missing nodes
-                        List<String> path = getPathFromTo(neighbour, destination);
-
-                        if(path != null) {
-                            if (!(path.contains(source.toString()))) {
-                                log("Path is valid!");
-                                log(neighbour + " is sending RREP on behalf of " + destination);
-
-                                // Incrementing the sequence number of the neighbour as per the aodv algorithm
-                                ++neighbour.sequenceNum;
-                                // Sending route reply to the source
-                                sendRouteReply(neighbour);
-                                log("Data Transfer Starts from " + source + " to " + destination);
-                                // handling the data transfer
-                                return handleDataTransfer(source, destination, intermediaryPath);
-                            }
-                            else {
-                                log("Path is invalid!");
-                            }
+                // Checking if the neighbour has a path to destination with a fresh enough sequence number, without creating a RoutingTable
+                int knownSequenceNum = neighbour.forwardPath.destSequenceNumOf(destination);
+                log.debug("Checking if {} has a path to the destination {} with a greater or equal destination sequence number", neighbour, destination);
+                if(knownSequenceNum != -1 && routeRequest.destSequenceNum <= knownSequenceNum) {
+
+                    log.debug("{} has a path to {}", neighbour, destination);
+                    log.debug("Validating the path!");
+
+                    // Checking if the path has no broken links and missing nodes
+                    List<Node> path = getPathFromTo(neighbour, destination);
+
+                    if(path != null) {
+                        if (!(path.contains(source))) {
+                            log.debug("Path is valid!");
+                            log.debug("{} is sending RREP on behalf of {}", neighbour, destination);
+
+                            // Incrementing the sequence number of the neighbour as per the aodv algorithm
+                            neighbour.incrementSequenceNum();
+                            // Sending route reply to the source
+                            sendRouteReply(discovery, neighbour);
+                            log.info("Data Transfer Starts from {} to {}", source, destination);
+                            // handling the data transfer
+                            return handleDataTransfer(source, destination, intermediaryPath, result, listener);
+                        }
+                        else {
+                            log.debug("Path is invalid!");
                         }
                     }
                 }
-                log(neighbour + " Forwarding the RREQ!");
+                // The rreq is not rebroadcast once it has travelled as many hops as its time to live
+                if(hopCount >= routeRequest.timeToLive) {
+                    discovery.timeToLiveReached = true;
+                    log.debug("{} is not forwarding the RREQ, its time to live has run out", neighbour);
+                    continue;
+                }
+                log.debug("{} Forwarding the RREQ!", neighbour);
 
                 // Adding the neighbour to the intermediary node in order for it to broadcast rreq to its neighbours
-                intermediaryNodes.add(neighbour);
+                flood.enqueue(neighbour);
             }
 
+            listener.nodeExpanded(start, ++expandedNodes);
+
             // Getting the current node from the intermediary node
-            start = intermediaryNodes.poll();
+            start = flood.poll();
         }
 
-        // Clearing the temporary data after the execution of the method
-        clearState();
-
-        return "DESTINATION UNREACHABLE!";
+        return RouteResult.unreachable();
     }
 
-    private String handleDataTransfer(Node source, Node destination, List<Node> intermediaryPath) {
+    private RouteResult handleDataTransfer(Node source, Node destination, List<Node> intermediaryPath, RouteQueryResult result, DiscoveryListener listener) {
 
         // Getting the ultimate path found by the findRoute()
 
-        String pathDiscovered = sendData(source, destination, false);
+        RouteResult pathDiscovered = sendData(source, destination, false);
 
         // Checking if the path discovery is successful
-        String[] parts = pathDiscovered.split(":");
-        if(parts.length == 1) {
+        if(pathDiscovered.getStatus() != RouteResult.Status.MISSING_EDGE && pathDiscovered.getStatus() != RouteResult.Status.MISSING_NODE) {
             if (gui != null && intermediaryPath != null) {
-                gui.setIntermediaryPath(intermediaryPath);
+                SwingUtilities.invokeLater(() -> gui.setIntermediaryPath(intermediaryPath));
             }
-            log(pathDiscovered);
+            log.info("{}", pathDiscovered);
             return pathDiscovered;
         }
-        // Handling the missing edge route error
-        else if(pathDiscovered.contains("missing edge")) {
-            Node current = graph.getNode(parts[1]);
-            Node nextHop = graph.getNode(parts[2]);
-            handleRouteError(source, destination, current, nextHop);
-            String recoveredPath = findRoute(source, destination);
-            if (gui != null) {
-                gui.setIntermediaryPath(intermediaryPath);
-            }
-            return recoveredPath;
-        }
-
-        // Handling missing node route error
+        // Handling the missing edge and missing node route errors
         else {
-            String nextHop = parts[1];
-            handleRouteError(nextHop);
-            String recoveredPath = findRoute(source, destination);
+            handleRouteError(source, destination, pathDiscovered);
+            RouteResult recoveredPath = findRoute(source, destination, result, listener);
             if (gui != null) {
-                gui.setIntermediaryPath(intermediaryPath);
+                SwingUtilities.invokeLater(() -> gui.setIntermediaryPath(intermediaryPath));
             }
             return recoveredPath;
         }
     }
 
     // Helper method to validate the path
-    private List<String> getPathFromTo(Node source, Node destination) {
-        List<String> path = new ArrayList<>();
+    private List<Node> getPathFromTo(Node source, Node destination) {
+        List<Node> path = new ArrayList<>();
 
         Node current = source;
-        path.add(current.toString());
+        path.add(current);
 
         while(!(current.equals(destination))) {
-            if(current.getForwardPathTo(destination) == null) {
-                log("Broken Link Detected!");
-                log("Path is invalid!");
+            Node nextHop = current.forwardPath.nextHopTo(destination); // Looking the next hop up once per hop without creating a RoutingTable
+            if(nextHop == null) {
+                log.warn("Broken Link Detected!");
+                log.debug("Path is invalid!");
                 source.removeForwardPathTo(destination);
                 return null;
             }
-            else if(!graph.containsNode(current.getForwardPathTo(destination).nextHop)) {
-                log("Missing Node Detected!");
-                log("Path is invalid!");
+            else if(!graph.containsNode(nextHop)) {
+                log.warn("Missing Node Detected!");
+                log.debug("Path is invalid!");
+                handleLinkBreak(current, nextHop, null, 0);
                 source.removeForwardPathTo(destination);
                 return null;
             }
-            else if(!graph.containsEdge(new Edge(current, current.getForwardPathTo(destination).nextHop))) {
-                log("Broken Link Detected!");
-                log("Path is invalid!");
-                log(source + " " + destination + " " + current);
+            else if(!graph.containsEdge(current, nextHop)) {
+                log.warn("Broken Link Detected!");
+                log.debug("Path is invalid!");
+                log.debug("{} {} {}", source, destination, current);
 
-                // sending the route error msg and removing the broken path
-                sendRouteErrorMessageTo(source, destination, current, "non-established");
+                // Invalidating the routes through the broken link and sending route errors to their precursors
+                handleLinkBreak(current, nextHop, null, 0);
+                source.removeForwardPathTo(destination);
                 return null;
             }
-            path.add(current.getForwardPathTo(destination).nextHop.toString());
-            current = current.getForwardPathTo(destination).nextHop;
+            else if(path.size() > graph.getAllNodes().size()) {
+                // A path longer than the number of nodes has run into a loop of routes that were not invalidated
+                log.warn("Routing Loop Detected!");
+                log.debug("Path is invalid!");
+                source.removeForwardPathTo(destination);
+                return null;
+            }
+            path.add(nextHop);
+            current = nextHop;
         }
 
-        log("PATH " + path);
+        log.debug("PATH {}", path);
         return path;
     }
 
@@ -243,46 +481,41 @@ public class AODV {
         }
         int destSequenceNum = 0;
 
-        // Getting the destination sequence number from list of forward paths of the source if it has
-        for(RoutingTable path: source.forwardPath) {
-            if(path.destination.equals(destination)) {
-                destSequenceNum = path.destSequenceNum;
-            }
+        // Getting the destination sequence number from the forward path of the source if it has one
+        if(source.forwardPath.contains(destination)) {
+            destSequenceNum = source.forwardPath.destSequenceNumOf(destination);
         }
 
         // Creating the route request
-        RouteRequest routeRequest = new RouteRequest(source, destination, source.sequenceNum, destSequenceNum, ++broadcastId);
-        routeRequests.put(broadcastId, routeRequest);
-        return routeRequest;
+        return new RouteRequest(source, destination, source.sequenceNum, destSequenceNum, broadcastId.incrementAndGet());
     }
 
     private RouteRequest getRouteRequest(Node source, Node destination) {
         return createRouteRequest(source, destination);
     }
 
-    private void sendRouteReply(Node sender) {
-        Node source = sender.processedRequests.get(0).source;
-        Node destination = sender.processedRequests.get(0).destination;
-        RouteReply routeReply = createRouteReply(sender);
+    private void sendRouteReply(RouteDiscovery discovery, Node sender) {
+        Node source = discovery.getSource();
+        Node destination = discovery.getDestination();
+        RouteReply routeReply = createRouteReply(discovery, sender);
 
 
-        log("Route Reply Transfer Starts!");
-        log(sender + " is sending RREP to " + source);
+        log.info("Route Reply Transfer Starts!");
+        log.info("{} is sending RREP to {}", sender, source);
 
         Node current;
         Node nextHop;
+        Node previous;
         int destSequenceNum;
         int hopCount;
-        RoutingTable forwardPath;
-        RoutingTable reversedForwardPath;
-        int reversedForwardPathHopCount = sender.getReversePathTo(source).hopCount;
+        int reversedForwardPathHopCount = sender.reversePath.hopCountTo(source);
 
         // Initializing the variables if the sender is an intermediary node sending the route reply on behalf of the destination
         if(!(sender.equals(destination))) {
-            current = sender.getReversePathTo(source).nextHop; // Starting from just before the sender in the path
+            current = sender.reversePath.nextHopTo(source); // Starting from just before the sender in the path
             nextHop = sender;
-            destSequenceNum = sender.getForwardPathTo(destination).destSequenceNum; // Getting the destination sequence number from the sender's forward path
-            hopCount = sender.getForwardPathTo(destination).hopCount + 1; // incrementing the hop count
+            destSequenceNum = sender.forwardPath.destSequenceNumOf(destination); // Getting the destination sequence number from the sender's forward path
+            hopCount = sender.forwardPath.hopCountTo(destination) + 1; // incrementing the hop count
         }
 
         // Initializing the variables if the sender is the destination itself
@@ -294,32 +527,52 @@ public class AODV {
         }
 
         do {
-            if(current.getForwardPathTo(destination) == null) {
-                forwardPath = new RoutingTable(destination, nextHop, hopCount, destSequenceNum); // Creating the forward path
+            discovery.controlMessages++; // The rrep is passed one hop further towards the source
+            discovery.routeReplies++;
+            // A route with a fresher destination sequence number replaces the old one, so a repaired route is not mixed with stale hops
+            if(current.forwardPath.update(destination, nextHop, hopCount, destSequenceNum)) {
                 routeReply.hopCount = hopCount; // Updating the hop count in route reply
-                current.forwardPath.add(forwardPath);
-                log(current + " recorded the forward path to " + destination);
-                log("Forward Path: " + forwardPath);
+                log.debug("{} recorded the forward path to {}", current, destination);
+                if(log.isEnabled(LogLevel.DEBUG)) { // Only creating the route when it is going to be logged
+                    log.debug("Forward Path: {}", new RoutingTable(destination, nextHop, hopCount, destSequenceNum));
+                }
             }
             else {
-                log(current + " already has a forward path to " + destination);
-                log("Forward Path: " + current.getForwardPathTo(destination));
-                log("Skipping adding forward path to " + current);
+                log.debug("{} already has a fresher or shorter forward path to {}", current, destination);
+                if(log.isEnabled(LogLevel.DEBUG)) { // Only looking the route up when it is going to be logged
+                    log.debug("Forward Path: {}", current.getForwardPathTo(destination));
+                }
+                log.debug("Skipping adding forward path to {}", current);
             }
+            lifetimes.activate(current.forwardPath, destination); // The rrep refreshes the route whether it replaced it or not
+            addToPrecursors(current, destination);
+            previous = nextHop;
             nextHop = current;
-            current = current.getReversePathTo(source).nextHop;
+            current = current.reversePath.nextHopTo(source);
+            if(current == null) {
+                // The reverse route was removed meanwhile, e.g. by a discovery on another thread, and the rrep is lost here
+                log.warn("{} has no reverse path to {} to pass the RREP on", nextHop, source);
+                return;
+            }
             if(sender.equals(destination)) {
-                if(nextHop.getForwardPathTo(source) == null) {
-                    reversedForwardPath = new RoutingTable(source, current, reversedForwardPathHopCount, source.sequenceNum); // Creating reversed forward path to the source for bidirectional route
-                    nextHop.forwardPath.add(reversedForwardPath);
-                    log(nextHop + " recorded the reversed forward path to " + source);
-                    log("Reversed Forward Path: " + reversedForwardPath);
-                    reversedForwardPathHopCount--;
+                // Recording the reversed forward path to the source for a bidirectional route
+                if(nextHop.forwardPath.update(source, current, reversedForwardPathHopCount, source.sequenceNum)) {
+                    log.debug("{} recorded the reversed forward path to {}", nextHop, source);
+                    if(log.isEnabled(LogLevel.DEBUG)) { // Only creating the route when it is going to be logged
+                        log.debug("Reversed Forward Path: {}", new RoutingTable(source, current, reversedForwardPathHopCount, source.sequenceNum));
+                    }
                 }
                 else {
-                    log(nextHop + " already has a reversed forward path to " + source);
-                    log("Reversed Forward Path: " + nextHop.getForwardPathTo(source));
-                    log("Skipping adding reversed forward path to " + source);
+                    log.debug("{} already has a fresher or shorter reversed forward path to {}", nextHop, source);
+                    if(log.isEnabled(LogLevel.DEBUG)) { // Only looking the route up when it is going to be logged
+                        log.debug("Reversed Forward Path: {}", nextHop.getForwardPathTo(source));
+                    }
+                    log.debug("Skipping adding reversed forward path to {}", source);
+                }
+                lifetimes.activate(nextHop.forwardPath, source);
+                reversedForwardPathHopCount--;
+                if(!previous.equals(nextHop)) {
+                    addToPrecursors(previous, source); // The node the rrep came from forwards to the source through this one
                 }
             }
             ++hopCount;
@@ -327,46 +580,63 @@ public class AODV {
 
         if(!(sender.equals(destination))) {
             // Sending the gratuitous reply to the destination in order for the destination to also be able to send data to the source without a separate rreq
-            sendGratuitousReply(sender);
+            sendGratuitousReply(discovery, sender);
         }
-        clearState();
     }
 
-    private void sendGratuitousReply(Node sender) {
-        Node source = sender.processedRequests.get(0).source;
-        Node destination = sender.processedRequests.get(0).destination;
+    private void sendGratuitousReply(RouteDiscovery discovery, Node sender) {
+        Node source = discovery.getSource();
+        Node destination = discovery.getDestination();
 
-        log(sender + " is sending gratuitous reply to " + destination);
+        log.info("{} is sending gratuitous reply to {}", sender, destination);
 
         Node current = source;
         Node nextHop = source;
         int hopCount = 0;
-        RoutingTable forwardPath;
 
         do {
+            discovery.controlMessages++; // The gratuitous reply is passed one hop further towards the destination
             // Adding the reversed forward paths to the nodes
-            if(current.getForwardPathTo(source) == null) {
-                forwardPath = new RoutingTable(source, nextHop, hopCount, source.sequenceNum);
-                current.forwardPath.add(forwardPath);
-                log(current + " recorded the forward path to " + source);
-                log("Forward Path: " + forwardPath);
+            if(current.forwardPath.update(source, nextHop, hopCount, source.sequenceNum)) {
+                log.debug("{} recorded the forward path to {}", current, source);
+                if(log.isEnabled(LogLevel.DEBUG)) { // Only creating the route when it is going to be logged
+                    log.debug("Forward Path: {}", new RoutingTable(source, nextHop, hopCount, source.sequenceNum));
+                }
             }
             else {
-                log(current + " already has a forward path to " + source);
-                log("Forward Path: " + current.getForwardPathTo(source));
-                log("Skipping adding forward path to " + current);
+                log.debug("{} already has a fresher or shorter forward path to {}", current, source);
+                if(log.isEnabled(LogLevel.DEBUG)) { // Only looking the route up when it is going to be logged
+                    log.debug("Forward Path: {}", current.getForwardPathTo(source));
+                }
+                log.debug("Skipping adding forward path to {}", current);
             }
+            lifetimes.activate(current.forwardPath, source);
+            addToPrecursors(current, source);
             nextHop = current;
-            current = current.getForwardPathTo(destination).nextHop;
+            current = current.forwardPath.nextHopTo(destination);
+            if(current == null) {
+                // A node that kept its own route to the destination may have lost it meanwhile, e.g. when it expired
+                log.debug("{} has no forward path to {} to pass the gratuitous reply on", nextHop, destination);
+                return;
+            }
             hopCount++;
         } while(!nextHop.equals(destination));
     }
 
-    private RouteReply createRouteReply(Node sender) {
+    // Method for recording a node as a precursor of the route to the destination at its next hop,
+    // so that the next hop knows whom to send a route error to when the route breaks further on
+    private void addToPrecursors(Node node, Node destination) {
+        Node nextHop = node.forwardPath.nextHopTo(destination);
+        if(nextHop != null && !nextHop.equals(node)) {
+            nextHop.forwardPath.addPrecursor(destination, node);
+        }
+    }
 
-        Node source = sender.processedRequests.get(0).source;
-        Node destination = sender.processedRequests.get(0).destination;
-        int broadcastId = sender.processedRequests.get(0).broadcastID;
+    private RouteReply createRouteReply(RouteDiscovery discovery, Node sender) {
+
+        Node source = discovery.getSource();
+        Node destination = discovery.getDestination();
+        int broadcastId = discovery.routeRequest.broadcastID;
         RouteReply routeReply;
 
         // creating the route reply for the intermediary node to send to the source
@@ -384,199 +654,177 @@ public class AODV {
         return routeReply;
     }
 
-    // Method for clearing temporary data
-    private void clearState() {
-        for(Node node: graph.getAllNodes()) {
-            node.processedRequests.clear();
-            node.hopCount = 0;
-        }
-        routeRequests.clear();
-    }
-
-    public String sendData(Node source, Node destination, boolean handleError) {
-        if(source.getForwardPathTo(destination) == null) {
-            log("No Route exists Between " + source + " and " + destination);
-            return null;
+    public RouteResult sendData(Node source, Node destination, boolean handleError) {
+        lifetimes.expireRoutes();
+        if(!source.forwardPath.contains(destination)) {
+            log.warn("No Route exists Between {} and {}", source, destination);
+            return RouteResult.noRoute(List.of(source), source);
         }
         Node current = source;
-        RoutingTable forwardPath;
-        String pathDiscovered = source + " -> ";
+        Node nextHop;
         List<Node> pathList = new ArrayList<>(); // A list of nodes to hold each node in the path for visualization in GUI
         pathList.add(source);
+        long expiryTime = lifetimes.activeRouteExpiry(); // Every route the data passes through lives on from now
 
         while(!(current.equals(destination))) {
-            forwardPath = current.getForwardPathTo(destination);
+            nextHop = current.forwardPath.forwardTo(destination, source, expiryTime); // Reading the next hop and refreshing the route
 
-            if(forwardPath == null) {
-                log("There is no route established from " + source + " to " + destination);
-                log("Discover the route using 'find route' option in the dropdown!");
-                break;
+            // A path longer than the number of nodes has run into a loop of routes that were not invalidated
+            if(nextHop == null || pathList.size() > graph.getAllNodes().size()) {
+                log.warn("There is no route established from {} to {}", source, destination);
+                log.warn("Discover the route using 'find route' option in the dropdown!");
+                return RouteResult.noRoute(pathList, current);
             }
             // Checking if the next node in the path is missing
-            if(graph.containsNode(forwardPath.nextHop)) {
+            if(graph.containsNode(nextHop)) {
 
                 // Checking if the current edge is missing
-                if(graph.containsEdge(new Edge(current, forwardPath.nextHop))) {
-                    if(!(forwardPath.nextHop.equals(destination))) {
-                        pathDiscovered = pathDiscovered.concat(forwardPath.nextHop + " -> ");
-                    }
-                    else {
-                        pathDiscovered = pathDiscovered.concat(forwardPath.nextHop.toString());
-                    }
-                    current = forwardPath.nextHop;
+                if(graph.containsEdge(current, nextHop)) {
+                    current = nextHop;
                     pathList.add(current);
                 }
                 else {
+                    RouteResult missingEdge = RouteResult.missingEdge(pathList, current, nextHop);
                     // Checking if it has to handle the route error
                     if(handleError) {
                         // Handling the missing edge route error if handleError is true
-                        handleRouteError(source, destination, current, forwardPath.nextHop);
+                        handleRouteError(source, destination, missingEdge);
                     }
-                    return "missing edge:" + current + ":" + forwardPath.nextHop;
+                    return missingEdge;
                 }
             }
             else {
+                RouteResult missingNode = RouteResult.missingNode(pathList, current, nextHop);
                 // Checking if it has to handle the route error
                 if(handleError) {
                     // Handling the missing node route error if handleError is true
-                    handleRouteError(forwardPath.nextHop.toString());
+                    handleRouteError(source, destination, missingNode);
                 }
-                return "missing node:" + forwardPath.nextHop;
+                return missingNode;
             }
         }
 
+        lifetimes.keepAlive(destination.forwardPath, source, expiryTime); // The route back to the source is used for the replies
         if (gui != null){
-            gui.setHighlightedPath(pathList);
+            SwingUtilities.invokeLater(() -> gui.setHighlightedPath(pathList)); // The data may be sent from a background worker
         }
 
-        return pathDiscovered;
+        return RouteResult.found(pathList);
     }
 
-    // Overloaded method to handle missing edge route error
-    private void handleRouteError(Node source, Node destination, Node current, Node nextHop) {
-        System.out.println();
-        log("ROUTE ERROR!");
-        log("EDGE BETWEEN " + current + " and " + nextHop + " DOES NOT EXIST ANYMORE!");
-        log(current + " IS SENDING ROUTE ERROR MESSAGE TO " + source);
-
-        // Sending route error msg to the source
-        sendRouteErrorMessageTo(source, destination, current, "established");
-        log("Re-initiating the request!");
-    }
-    // Overloaded method to handle missing node route error
-    private void handleRouteError(String nextHop) {
-        System.out.println();
-        log("ROUTE ERROR!");
-        log(nextHop + " DOES NOT EXIST ANYMORE!");
-        log("RESETTING ALL THE ROUTES!");
-        resetAllRoutes(); // Clearing all the data
-        log("RE-INITIATING THE ROUTE REQUEST!");
-    }
+    // Method for handling a missing edge or missing node route error the data from source to destination ran into
+    // Only the routes through the broken link are invalidated and only their precursors are told with route errors
+    private void handleRouteError(Node source, Node destination, RouteResult failure) {
+        Node current = failure.getFailedAt();
+        Node lost = failure.getFailedNextHop();
+        log.warn("");
+        log.warn("ROUTE ERROR!");
+        if(failure.getStatus() == RouteResult.Status.MISSING_EDGE) {
+            log.warn("EDGE BETWEEN {} and {} DOES NOT EXIST ANYMORE!", current, lost);
+        }
+        else {
+            log.warn("{} DOES NOT EXIST ANYMORE!", lost);
+        }
 
-    private RouteError createRouteErrorMessage(Node destination) {
-        return new RouteError(destination, destination.sequenceNum);
+        boolean repaired = handleLinkBreak(current, lost, destination, failure.getPath().size() - 1);
+        if(graph.containsNode(lost)) {
+            handleLinkBreak(lost, current, null, 0); // The other end of the link loses its routes through current as well
+        }
+        if(!repaired) {
+            source.removeForwardPathTo(destination); // In case the route errors did not reach the source
+            log.warn("Re-initiating the request!");
+        }
     }
 
-    private void sendRouteErrorMessageTo(Node source, Node destination, Node currentNode, String routeType) {
-        RouteError routeError = createRouteErrorMessage(destination);
-        currentNode.sequenceNum++;
-        Node previous;
-        Node current;
-        RoutingTable nextPath;
-
-        // Checking if the route is established via findRoute
-        if(routeType.equals("established")) {
-
-            // Checking if the route was requested to be found
-            if (currentNode.getReversePathTo(source) != null) {
-                previous = currentNode;
-                current = currentNode.getForwardPathTo(destination).nextHop; // Starting from the next node in the path
-                // Removing the forward paths to the destination and reversed forward paths to the source
-                do {
-                    nextPath = current.getForwardPathTo(destination);
-                    current.removeForwardPathTo(destination);
-                    current.removeForwardPathTo(source);
-
-                    current = nextPath.nextHop;
-
-                } while (!(current.equals(destination)));
-                current.removeForwardPathTo(destination);
-                current.removeForwardPathTo(source);
-
-                // Going backwards and removing the forward paths to the destination and reversed forward paths to the source
-                do {
-                    previous.removeForwardPathTo(destination);
-                    previous.removeForwardPathTo(source);
-                    previous = previous.getReversePathTo(source).nextHop;
-                } while (!(previous.equals(source)));
-                previous.removeForwardPathTo(destination);
-                previous.removeForwardPathTo(source);
-            }
-
-            // For the path that was implicitly established using reversed forward paths
-            else {
-                current = currentNode; // Starting from the current node
-                previous = current.getForwardPathTo(destination).nextHop;
-
-                // Removing the forward and reversed forward paths
-                do {
-                    nextPath = current.getForwardPathTo(source);
-                    current.removeForwardPathTo(source);
-                    current.removeForwardPathTo(destination);
-                    current = nextPath.nextHop;
-                } while (!(current.equals(source)));
-                current.removeForwardPathTo(source);
-                current.removeForwardPathTo(destination);
-
-                // Going backwards and removing the forward and reversed forward paths
-                do {
-                    nextPath = previous.getForwardPathTo(destination);
-                    previous.removeForwardPathTo(destination);
-                    previous.removeForwardPathTo(source);
-                    previous = nextPath.nextHop;
-                } while (!(previous.equals(destination)));
-                previous.removeForwardPathTo(destination);
-                previous.removeForwardPathTo(source);
+    // Method for invalidating the routes of a node that go through a neighbour it lost the link to
+    // The route to the destination of the data that ran into the break is repaired locally first if local repair is on,
+    // the precursors of every other invalidated route get a route error, returns whether the route to the destination was repaired
+    private boolean handleLinkBreak(Node node, Node lostNeighbour, Node dataDestination, int hopsFromSource) {
+        boolean repaired = false;
+        Queue<RouteError> routeErrors = new ArrayDeque<>();
+        node.incrementSequenceNum();
+        for(Node destination : node.forwardPath.destinationsVia(lostNeighbour)) {
+            RoutingTable route = node.getForwardPathTo(destination);
+            if(route == null) {
+                continue; // Removed by a local repair of an earlier destination in the meantime
             }
-
-            // Clearing all the reverse paths from every node in the graph in order to avoid cyclic paths while re-initiating the route find request
-            for(Node node: graph.getAllNodes()) {
-                node.reversePath.clear();
+            node.forwardPath.remove(destination);
+            log.debug("{} invalidated its route to {} through {}", node, destination, lostNeighbour);
+            if(destination.equals(dataDestination) && repairLocally(node, route, hopsFromSource)) {
+                for(Node precursor : route.precursors) {
+                    node.forwardPath.addPrecursor(destination, precursor); // The precursors keep using the repaired route
+                }
+                repaired = true;
+                continue;
             }
+            queueRouteErrors(node, route.precursors, destination, route.destSequenceNum + 1, routeErrors);
         }
+        deliverRouteErrors(routeErrors);
+        return repaired;
+    }
 
-        // For the path an intermediary node has to the destination
-        else {
-            previous = currentNode; // Starting from the current node
+    // Method for letting the node that detected the break find the destination again with a rreq limited to the hops around it
+    private boolean repairLocally(Node node, RoutingTable route, int hopsFromSource) {
+        if(!localRepair || route.hopCount > MAX_REPAIR_TTL || !graph.containsNode(route.destination)) {
+            return false;
+        }
+        if(!mayOriginate(node)) {
+            return false; // The repair is a rreq of the node like any other
+        }
+        log.warn("{} IS REPAIRING THE ROUTE TO {} LOCALLY!", node, route.destination);
+
+        // Only a route fresher than the broken one is accepted, so intermediary nodes cannot answer with routes through the break
+        RouteRequest routeRequest = new RouteRequest(node, route.destination, node.sequenceNum, route.destSequenceNum + 1, broadcastId.incrementAndGet());
+        routeRequest.timeToLive = Math.max(route.hopCount, hopsFromSource / 2) + LOCAL_ADD_TTL;
+        RouteResult repairedRoute = discover(new RouteDiscovery(routeRequest), null, DiscoveryListener.NONE);
+        if(!repairedRoute.isFound()) {
+            log.warn("{} could not repair the route to {}", node, route.destination);
+            return false;
+        }
+        metrics.localRepairs.increment();
+        return true;
+    }
 
-            // Removing the forward paths
-            do {
-                nextPath = previous.getForwardPathTo(destination);
-                previous.removeForwardPathTo(destination);
-                previous = nextPath.nextHop;
-            } while (!(previous.equals(destination)));
-            previous.removeForwardPathTo(destination);
+    // Method for queueing a route error for every precursor of an invalidated route that can still be reached
+    private void queueRouteErrors(Node sender, List<Node> precursors, Node destination, int destSequenceNum, Queue<RouteError> routeErrors) {
+        for(Node precursor : precursors) {
+            if(!graph.containsEdge(sender, precursor)) {
+                continue; // The route error is lost if there is no link to transmit it over
+            }
+            RouteError routeError = new RouteError(destination, destSequenceNum);
+            routeError.sender = sender;
+            routeError.receiver = precursor;
+            routeErrors.add(routeError);
+            metrics.routeErrors.increment();
+            log.warn("{} IS SENDING ROUTE ERROR MESSAGE TO {}", sender, precursor);
         }
     }
 
-    // Method for clearing all the data
-    private void resetAllRoutes() {
-        for(Node node: graph.getAllNodes()) {
-            node.processedRequests.clear();
-            node.forwardPath.clear();
-            node.reversePath.clear();
-            node.hopCount = 0;
-            node.sequenceNum = 0;
+    // Method for passing the route errors on hop by hop until no precursor is left that routes through the sender
+    private void deliverRouteErrors(Queue<RouteError> routeErrors) {
+        RouteError routeError;
+        while((routeError = routeErrors.poll()) != null) {
+            Node receiver = routeError.receiver;
+            Node destination = routeError.destination;
+
+            // Only nodes that were routing to the destination through the sender of the rerr lose the route and pass it on
+            if(!routeError.sender.equals(receiver.forwardPath.nextHopTo(destination))) {
+                continue;
+            }
+            List<Node> precursors = receiver.forwardPath.precursorsOf(destination);
+            receiver.forwardPath.remove(destination);
+            log.debug("{} removed its route to {} after the RERR from {}", receiver, destination, routeError.sender);
+            queueRouteErrors(receiver, precursors, destination, routeError.destSequenceNum, routeErrors);
         }
     }
 
-    // Method for logging routing decisions on the gui window
-    private void log(String message) {
-        if (gui != null) {
-            SwingUtilities.invokeLater(() -> gui.appendLog(message));
-        } else {
-            System.out.println(message);
+    // Method for printing a batch of routing decisions on the console with a single write
+    private static void printLogs(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append(System.lineSeparator());
         }
+        System.out.print(builder);
     }
 
 }
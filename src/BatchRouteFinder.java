@@ -0,0 +1,68 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Runs many route discoveries on a ForkJoinPool and collects a structured result for each of them
+// The results are always returned in the order of the queries, regardless of the order the discoveries finish in
+// Routes expire once before the batch and not while it runs, so the discoveries do not remove each other's routes
+public class BatchRouteFinder implements AutoCloseable {
+
+    private AODV aodv;
+    private ForkJoinPool pool;
+
+    public BatchRouteFinder(AODV aodv) {
+        this(aodv, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRouteFinder(AODV aodv, int parallelism) {
+        this.aodv = aodv;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // Method for finding the routes of all the queries in parallel
+    public List<RouteQueryResult> findRoutes(Collection<RouteQuery> queries) {
+        List<Callable<RouteQueryResult>> tasks = new ArrayList<>(queries.size());
+        for(RouteQuery query : queries) {
+            tasks.add(() -> findRoute(query));
+        }
+
+        List<RouteQueryResult> results = new ArrayList<>(tasks.size());
+        aodv.holdExpiry();
+        try {
+            for(Future<RouteQueryResult> future : pool.invokeAll(tasks)) { // invokeAll() keeps the futures in the order of the tasks
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the route queries", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Route query failed", e.getCause());
+        } finally {
+            aodv.releaseExpiry();
+        }
+        return results;
+    }
+
+    // Method for running a single query and measuring it
+    private RouteQueryResult findRoute(RouteQuery query) {
+        RouteQueryResult result = new RouteQueryResult(query);
+        long start = System.nanoTime();
+        RouteResult route = aodv.findRoute(query.source, query.destination, result);
+        result.elapsedNanos = System.nanoTime() - start;
+        result.record(route);
+        return result;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,13 @@
+// Base class for the aodv control messages so that they can travel through the simulation as scheduled events
+// The sender, receiver and protocol are only set while the message is in flight in a SimulatedAODV
+public abstract class ControlMessage implements SimulationEvent {
+
+    Node sender; // The node that transmitted this copy of the message
+    Node receiver; // The node this copy of the message is delivered to
+    SimulatedAODV protocol; // The protocol instance that handles the message when it arrives
+
+    @Override
+    public void fire(Simulator simulator) {
+        protocol.receive(this);
+    }
+}
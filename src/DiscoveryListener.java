@@ -0,0 +1,16 @@
+// Receives the progress of a running route discovery and can stop it early
+public interface DiscoveryListener {
+
+    // A listener that ignores the progress and only stops the discovery if its thread is interrupted
+    DiscoveryListener NONE = new DiscoveryListener() {
+    };
+
+    // Called after a node has broadcast the rreq to all its neighbours
+    default void nodeExpanded(Node node, int expandedNodes) {
+    }
+
+    // Checked before every node is expanded, the discovery ends with a CANCELLED result once it returns true
+    default boolean isCancelled() {
+        return Thread.currentThread().isInterrupted();
+    }
+}
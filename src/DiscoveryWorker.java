@@ -0,0 +1,65 @@
+import javax.swing.*;
+import java.util.List;
+
+// Runs a route discovery or a data transfer in the background so that the window stays responsive
+// Every node that broadcasts the rreq is published to the gui as it happens, and the discovery stops when the worker is cancelled
+// since SwingWorker.isCancelled() is also the isCancelled() of the DiscoveryListener
+public class DiscoveryWorker extends SwingWorker<RouteResult, Node> implements DiscoveryListener {
+
+    private GUI gui;
+    private AODV aodv;
+    private Node source;
+    private Node destination;
+    private boolean sendData; // Whether data is sent along the existing route first instead of finding a new one
+    private int totalNodes; // The number of nodes in the graph, used for estimating the progress
+
+    public DiscoveryWorker(GUI gui, AODV aodv, Node source, Node destination, boolean sendData, int totalNodes) {
+        this.gui = gui;
+        this.aodv = aodv;
+        this.source = source;
+        this.destination = destination;
+        this.sendData = sendData;
+        this.totalNodes = Math.max(totalNodes, 1);
+    }
+
+    // The result is handed to the gui from here rather than from done(), which runs as soon as the worker is cancelled
+    // while the discovery may still be iterating the graph until it reaches the next node it expands, so the controls that
+    // change the graph are only enabled again once the discovery has really returned
+    @Override
+    protected RouteResult doInBackground() {
+        RouteResult route = RouteResult.unreachable();
+        try {
+            route = discover();
+        } catch (RuntimeException e) {
+            SwingUtilities.invokeLater(() -> gui.appendLog("Error while finding the route: " + e));
+        } finally {
+            RouteResult result = isCancelled() ? RouteResult.cancelled() : route;
+            SwingUtilities.invokeLater(() -> gui.showRouteResult(result, sendData, source));
+        }
+        return route;
+    }
+
+    private RouteResult discover() {
+        if (!sendData) {
+            return aodv.findRoute(source, destination, this);
+        }
+        RouteResult route = aodv.sendData(source, destination, true);
+
+        // Recovering the route with a new discovery if the data could not be delivered
+        if (route.isFound() || (route.getStatus() == RouteResult.Status.NO_ROUTE && route.getFailedAt() == source)) {
+            return route;
+        }
+        return aodv.findRoute(source, destination, this);
+    }
+
+    @Override
+    public void nodeExpanded(Node node, int expandedNodes) {
+        publish(node);
+        setProgress(Math.min(99, expandedNodes * 100 / totalNodes));
+    }
+
+    @Override
+    protected void process(List<Node> expandedNodes) {
+        gui.addIntermediaryNodes(expandedNodes); // Showing the flood on the graph while it spreads
+    }
+}
@@ -1,5 +1,3 @@
-import java.util.Objects;
-
 public class Edge {
 
     Node source;
@@ -30,7 +28,7 @@ public class Edge {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.source, this.destination);
+        return 31 * (31 + source.hashCode()) + destination.hashCode(); // The value of Objects.hash(source, destination) without allocating
     }
     @Override
     public String toString() {
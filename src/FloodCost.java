@@ -0,0 +1,59 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+// Counts the rreq transmissions of a flood in which every node it reaches rebroadcasts once to all its neighbours
+// The metrics compare the rreqs the expanding ring searches sent with these counts, when the comparison is turned on
+// The cost of flooding each connected component is computed once per version of the graph, with the components
+// held in arrays indexed by node id
+public class FloodCost {
+
+    private Graph graph;
+    private long version = -1; // The version of the graph the component costs were computed for
+    private int[] componentOf = new int[0]; // The component of each node by id, -1 for the ids without a node
+    private long[] componentCosts = new long[0]; // The flood cost of each component
+
+    public FloodCost(Graph graph) {
+        this.graph = graph;
+    }
+
+    // Method for getting the cost of a rreq without a time to live, which reaches the whole component of the source
+    public synchronized long ofComponent(Node source) {
+        if(version != graph.getVersion()) {
+            computeComponentCosts();
+        }
+        int component = source.id >= 0 && source.id < componentOf.length ? componentOf[source.id] : -1;
+        return component == -1 ? 0 : componentCosts[component];
+    }
+
+    private void computeComponentCosts() {
+        version = graph.getVersion();
+        Node[] nodesById = graph.getNodesById();
+        componentOf = new int[nodesById.length];
+        Arrays.fill(componentOf, -1);
+        componentCosts = new long[16];
+        int components = 0;
+        Queue<Node> queue = new ArrayDeque<>();
+        for(Node start : nodesById) {
+            if(start == null || componentOf[start.id] != -1) {
+                continue;
+            }
+            int component = components++;
+            if(component == componentCosts.length) {
+                componentCosts = Arrays.copyOf(componentCosts, 2 * component);
+            }
+            componentOf[start.id] = component;
+            queue.add(start);
+            while(!queue.isEmpty()) {
+                Node node = queue.poll();
+                componentCosts[component] += graph.degreeOf(node);
+                graph.forEachNeighbourOf(node, neighbour -> {
+                    if(componentOf[neighbour.id] == -1) {
+                        componentOf[neighbour.id] = component;
+                        queue.add(neighbour);
+                    }
+                });
+            }
+        }
+    }
+}
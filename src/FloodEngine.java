@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+// The working memory of a breadth first flood over the graph, kept between floods so that a flood allocates nothing
+// once the arrays have grown to the size of the graph
+// Nodes are addressed by their dense id, a node counts as visited when its mark holds the generation of the current flood,
+// so starting the next flood only increments the generation instead of clearing the marks
+// The queue holds nodes in an array that is reset instead of freed, so it only grows until it fits the largest flood
+// An engine serves one flood at a time and is not shared between threads
+public class FloodEngine {
+
+    private static final Node[] NO_NEIGHBOURS = new Node[0];
+
+    private int generation; // The mark of the nodes visited by the current flood, never 0 which is the mark of fresh arrays
+    private int[] marks = new int[0]; // The generation each node was last visited in, indexed by id
+    private int[] hopCounts = new int[0]; // The hop count each node was visited with, only valid while its mark is current
+    private Node[] queue = new Node[16];
+    private int head; // The next node to poll
+    private int tail; // Where the next node is queued
+    private Node[][] neighbours = new Node[0][]; // The neighbours of every node of the graph being flooded, indexed by id
+    boolean busy; // Whether a flood is using the engine, so that a flood started from inside it gets an engine of its own
+
+    // Method for starting a new flood over the current topology of the graph, forgetting everything of the previous one
+    public void begin(Graph graph) {
+        neighbours = graph.getNeighbourArrays();
+        if(marks.length < neighbours.length) {
+            marks = Arrays.copyOf(marks, neighbours.length); // The new entries are 0 and therefore not visited
+            hopCounts = new int[neighbours.length];
+        }
+        if(++generation == 0) {
+            Arrays.fill(marks, 0); // After wrapping around, marks of long past floods could equal the generation again
+            generation = 1;
+        }
+        head = 0;
+        tail = 0;
+    }
+
+    // Method for checking if a node was visited by the current flood
+    public boolean isVisited(Node node) {
+        return node.id < marks.length && marks[node.id] == generation;
+    }
+
+    // Method for recording that a node was visited by the current flood after the given number of hops
+    public void visit(Node node, int hopCount) {
+        marks[node.id] = generation;
+        hopCounts[node.id] = hopCount;
+    }
+
+    // Method for getting the hop count a node was visited with, zero if the current flood has not visited it
+    public int hopCountOf(Node node) {
+        return isVisited(node) ? hopCounts[node.id] : 0;
+    }
+
+    // Method for getting the neighbours of a node as they were when the flood began, the array must not be modified
+    public Node[] neighboursOf(Node node) {
+        Node[] nodeNeighbours = node.id < neighbours.length ? neighbours[node.id] : null;
+        return nodeNeighbours == null ? NO_NEIGHBOURS : nodeNeighbours;
+    }
+
+    public void enqueue(Node node) {
+        if(tail == queue.length) {
+            queue = Arrays.copyOf(queue, queue.length * 2);
+        }
+        queue[tail++] = node;
+    }
+
+    // Method for taking the next node off the queue, returns null once the flood has run out of nodes
+    public Node poll() {
+        return head == tail ? null : queue[head++];
+    }
+}
@@ -0,0 +1,401 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Places the nodes of a graph with a force directed layout, neighbours attract each other and all nodes repel each other
+// The repulsion is approximated with a Barnes-Hut quadtree, so an iteration takes O(n log n) instead of O(n^2),
+// and the forces of the nodes are computed in parallel on a ForkJoinPool
+// The layout works on a copy of the positions taken when it starts and writes them into Node.x and Node.y through the publisher
+public class ForceLayout implements AutoCloseable {
+
+    public static final int DEFAULT_ITERATIONS = 300; // Iterations for laying out a graph from random positions
+    public static final int REFINE_ITERATIONS = 60; // Iterations for settling the layout after a small change of the graph
+    private static final double THETA = 0.8; // Cells that look smaller than this from a node are treated as a single body
+    private static final int MAX_DEPTH = 48; // Nodes at the same position are kept in one cell below this depth
+    private static final double GRAVITY = 3; // Strength of the pull towards the center, relative to the attraction of an edge
+    private static final int PUBLISH_INTERVAL = 5; // The positions are published every few iterations while converging
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private Graph graph;
+    private ForkJoinPool pool;
+    private volatile Thread runner; // The thread of the layout in progress, null if no layout is running
+    private volatile int generation; // Incremented whenever a layout starts or stops, so positions of older layouts are dropped
+
+    // The copy of the graph the layout works on, nodes are indexed from 0 and the neighbours of node i are
+    // neighbours[offsets[i]] up to neighbours[offsets[i + 1] - 1]
+    private Node[] nodes;
+    private int[] offsets;
+    private int[] neighbours;
+    private long graphVersion; // The version of the graph the copy was taken from
+    private double[] positionX;
+    private double[] positionY;
+    private double[] displacementX;
+    private double[] displacementY;
+    private double width; // The size of the area the nodes are spread over at first, grows with the number of nodes
+    private double height;
+    private double optimalDistance; // The distance at which attraction and repulsion of two neighbours cancel out
+
+    // The quadtree, cell 0 is the root and a cell holds the number and summed positions of the nodes inside it
+    private int cellCount;
+    private int[] children; // The 4 children of cell c are children[4c] up to children[4c + 3], -1 if missing
+    private int[] bodies; // The node of a leaf cell, -1 for cells that are split into children
+    private int[] masses;
+    private double[] sumX;
+    private double[] sumY;
+    private double[] centerX; // The center and half the size of the square a cell covers
+    private double[] centerY;
+    private double[] halfSize;
+
+    public ForceLayout(Graph graph) {
+        this(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ForceLayout(Graph graph, int parallelism) {
+        this.graph = graph;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // Method for laying out the graph on the calling thread and writing the final positions into the nodes
+    public void run(int iterations) {
+        stop();
+        snapshot();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            step(temperatureAt(iteration, iterations));
+        }
+        writePositions(roundedX(), roundedY());
+    }
+
+    // Method for laying out the graph on a background thread, must be called on the thread that changes the graph
+    // The positions are handed to the publisher every few iterations, which writes them into the nodes and runs onUpdate,
+    // the gui passes SwingUtilities::invokeLater so that the nodes only move on the event dispatch thread
+    // The layout stops by itself if the graph changes before it is done
+    public synchronized void start(int iterations, Executor publisher, Runnable onUpdate) {
+        stop();
+        snapshot();
+        long version = graphVersion;
+        int current = ++generation;
+        Thread thread = new Thread(() -> {
+            for (int iteration = 0; iteration < iterations && runner == Thread.currentThread(); iteration++) {
+                step(temperatureAt(iteration, iterations));
+                if ((iteration + 1) % PUBLISH_INTERVAL == 0 || iteration == iterations - 1) {
+                    int[] x = roundedX(), y = roundedY();
+                    publisher.execute(() -> {
+                        if (generation != current || graph.getVersion() != version) {
+                            return; // A newer layout is running or the nodes of the copy may no longer be in the graph
+                        }
+                        writePositions(x, y);
+                        onUpdate.run();
+                    });
+                }
+            }
+            if (runner == Thread.currentThread()) {
+                runner = null;
+            }
+        }, "graph-layout");
+        thread.setDaemon(true);
+        runner = thread;
+        thread.start();
+    }
+
+    // Method for stopping the layout running in the background, the positions published so far stay
+    public synchronized void stop() {
+        generation++;
+        Thread thread = runner;
+        runner = null;
+        if (thread != null) {
+            try {
+                thread.join(); // Waiting for the current iteration to end so that the copy can be replaced
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return runner != null;
+    }
+
+    // Method for copying the nodes, edges and positions of the graph into arrays indexed by node
+    private void snapshot() {
+        nodes = graph.getAllNodes().toArray(new Node[0]);
+        graphVersion = graph.getVersion();
+        int count = nodes.length;
+        int[] indexOfId = new int[graph.getIdCount()];
+        for (int i = 0; i < count; i++) {
+            indexOfId[nodes[i].id] = i;
+        }
+
+        offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] = offsets[i] + graph.degreeOf(nodes[i]);
+        }
+        neighbours = new int[offsets[count]];
+        for (int i = 0; i < count; i++) {
+            int[] next = {offsets[i]};
+            graph.forEachNeighbourOf(nodes[i], neighbour -> neighbours[next[0]++] = indexOfId[neighbour.id]);
+        }
+
+        positionX = new double[count];
+        positionY = new double[count];
+        displacementX = new double[count];
+        displacementY = new double[count];
+        for (int i = 0; i < count; i++) {
+            positionX[i] = nodes[i].x;
+            positionY[i] = nodes[i].y;
+        }
+
+        // Keeping the 800 by 400 area the nodes are placed in for the default graph and growing it with the number of nodes
+        double growth = Math.max(1, Math.sqrt(count / 20.0));
+        width = 800 * growth;
+        height = 400 * growth;
+        optimalDistance = 0.75 * Math.sqrt(width * height / Math.max(count, 1));
+        spreadPositions();
+        int capacity = 2 * count + 16;
+        children = new int[4 * capacity];
+        bodies = new int[capacity];
+        masses = new int[capacity];
+        sumX = new double[capacity];
+        sumY = new double[capacity];
+        centerX = new double[capacity];
+        centerY = new double[capacity];
+        halfSize = new double[capacity];
+    }
+
+    // Method for stretching the positions over the whole area if the nodes take up only a small part of it,
+    // as nodes placed in the default area would otherwise start out far too close to each other in a large graph
+    private void spreadPositions() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < nodes.length; i++) {
+            minX = Math.min(minX, positionX[i]);
+            minY = Math.min(minY, positionY[i]);
+            maxX = Math.max(maxX, positionX[i]);
+            maxY = Math.max(maxY, positionY[i]);
+        }
+        if (nodes.length < 2 || (maxX - minX) * (maxY - minY) * 4 > width * height) {
+            return;
+        }
+        double scaleX = width / Math.max(maxX - minX, 1), scaleY = height / Math.max(maxY - minY, 1);
+        for (int i = 0; i < nodes.length; i++) {
+            positionX[i] = 80 + (positionX[i] - minX) * scaleX;
+            positionY[i] = 50 + (positionY[i] - minY) * scaleY;
+        }
+    }
+
+    // The maximum distance a node may move in an iteration, it cools down linearly so that the layout settles
+    private double temperatureAt(int iteration, int iterations) {
+        double start = width / 10 * Math.min(1, (double) iterations / DEFAULT_ITERATIONS);
+        return Math.max(start * (1 - (double) iteration / iterations), 0.5);
+    }
+
+    // Method for running a single iteration, the forces are computed in parallel and the nodes are moved afterwards
+    private void step(double temperature) {
+        int count = nodes.length;
+        if (count == 0) {
+            return;
+        }
+        buildQuadtree();
+
+        int chunks = Math.min(count, pool.getParallelism() * CHUNKS_PER_THREAD);
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) count * chunk / chunks), to = (int) ((long) count * (chunk + 1) / chunks);
+            tasks.add(() -> {
+                int[] stack = new int[4 * MAX_DEPTH + 4];
+                for (int i = from; i < to; i++) {
+                    computeDisplacement(i, stack);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while computing the layout", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Layout iteration failed", e.getCause());
+            }
+        }
+
+        // Moving every node along its displacement, but not further than the temperature
+        // The nodes are not kept inside the area since nodes pushed against its border pile up there in large graphs
+        for (int i = 0; i < count; i++) {
+            double length = Math.sqrt(displacementX[i] * displacementX[i] + displacementY[i] * displacementY[i]);
+            if (length > 0) {
+                double distance = Math.min(length, temperature);
+                positionX[i] += displacementX[i] / length * distance;
+                positionY[i] += displacementY[i] / length * distance;
+            }
+        }
+    }
+
+    // Method for summing the forces on a node, the repulsion of the other nodes and the attraction of its neighbours
+    private void computeDisplacement(int node, int[] stack) {
+        double k2 = optimalDistance * optimalDistance;
+        double x = positionX[node], y = positionY[node];
+        double forceX = 0, forceY = 0;
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            double dx = x - sumX[cell] / masses[cell];
+            double dy = y - sumY[cell] / masses[cell];
+            double distance2 = dx * dx + dy * dy;
+            if (bodies[cell] >= 0 || 4 * halfSize[cell] * halfSize[cell] < THETA * THETA * distance2) {
+                if (distance2 > 0) {
+                    // Repulsion of k^2 / d away from the cell, pushed by all the nodes inside it
+                    forceX += dx / distance2 * k2 * masses[cell];
+                    forceY += dy / distance2 * k2 * masses[cell];
+                }
+                else if (bodies[cell] != node) {
+                    forceX += (node & 1) == 0 ? 0.01 * optimalDistance : -0.01 * optimalDistance; // Separating nodes at the same position
+                }
+                continue;
+            }
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                int child = children[4 * cell + quadrant];
+                if (child >= 0) {
+                    stack[top++] = child;
+                }
+            }
+        }
+
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+            int neighbour = neighbours[i];
+            double dx = x - positionX[neighbour], dy = y - positionY[neighbour];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            // Attraction of d^2 / k towards the neighbour
+            forceX -= dx * distance / optimalDistance;
+            forceY -= dy * distance / optimalDistance;
+        }
+        // Pulling every node towards the center of all nodes, which keeps the repulsion from spreading large graphs without end
+        forceX -= GRAVITY * (x - sumX[0] / masses[0]);
+        forceY -= GRAVITY * (y - sumY[0] / masses[0]);
+        displacementX[node] = forceX;
+        displacementY[node] = forceY;
+    }
+
+    private void buildQuadtree() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < nodes.length; i++) {
+            minX = Math.min(minX, positionX[i]);
+            minY = Math.min(minY, positionY[i]);
+            maxX = Math.max(maxX, positionX[i]);
+            maxY = Math.max(maxY, positionY[i]);
+        }
+        cellCount = 0;
+        newCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX - minX, maxY - minY) / 2 + 1);
+        for (int i = 0; i < nodes.length; i++) {
+            insert(i);
+        }
+    }
+
+    // Method for adding a node to the quadtree, a leaf that already holds a node is split until the two nodes are apart
+    private void insert(int node) {
+        double x = positionX[node], y = positionY[node];
+        int cell = 0;
+        for (int depth = 0; ; depth++) {
+            masses[cell]++;
+            sumX[cell] += x;
+            sumY[cell] += y;
+            if (masses[cell] == 1) {
+                bodies[cell] = node; // An empty cell becomes a leaf holding the node
+                return;
+            }
+            if (bodies[cell] >= 0) {
+                if (depth >= MAX_DEPTH) {
+                    return; // The node is too close to the one already in the leaf to ever be separated
+                }
+                // Moving the node of the leaf down into a child so that the cell can be split
+                int other = bodies[cell];
+                bodies[cell] = -1;
+                int child = childOf(cell, quadrantOf(cell, positionX[other], positionY[other]));
+                masses[child] = 1;
+                sumX[child] = positionX[other];
+                sumY[child] = positionY[other];
+                bodies[child] = other;
+            }
+            cell = childOf(cell, quadrantOf(cell, x, y));
+        }
+    }
+
+    private int quadrantOf(int cell, double x, double y) {
+        return (x < centerX[cell] ? 0 : 1) + (y < centerY[cell] ? 0 : 2);
+    }
+
+    // Method for getting the child of a cell in a quadrant, creating it if it does not exist yet
+    private int childOf(int cell, int quadrant) {
+        if (children[4 * cell + quadrant] < 0) {
+            double quarter = halfSize[cell] / 2;
+            int child = newCell(centerX[cell] + ((quadrant & 1) == 0 ? -quarter : quarter),
+                    centerY[cell] + ((quadrant & 2) == 0 ? -quarter : quarter), quarter);
+            children[4 * cell + quadrant] = child;
+        }
+        return children[4 * cell + quadrant];
+    }
+
+    private int newCell(double x, double y, double half) {
+        if (cellCount == bodies.length) {
+            int capacity = 2 * bodies.length;
+            children = Arrays.copyOf(children, 4 * capacity);
+            bodies = Arrays.copyOf(bodies, capacity);
+            masses = Arrays.copyOf(masses, capacity);
+            sumX = Arrays.copyOf(sumX, capacity);
+            sumY = Arrays.copyOf(sumY, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            halfSize = Arrays.copyOf(halfSize, capacity);
+        }
+        int cell = cellCount++;
+        Arrays.fill(children, 4 * cell, 4 * cell + 4, -1);
+        bodies[cell] = -1;
+        masses[cell] = 0;
+        sumX[cell] = 0;
+        sumY[cell] = 0;
+        centerX[cell] = x;
+        centerY[cell] = y;
+        halfSize[cell] = half;
+        return cell;
+    }
+
+    // Methods for getting the positions to publish, shifted so that the leftmost and topmost nodes keep the usual margin
+    private int[] roundedX() {
+        return rounded(positionX, 80);
+    }
+
+    private int[] roundedY() {
+        return rounded(positionY, 50);
+    }
+
+    private static int[] rounded(double[] positions, int margin) {
+        double min = Double.MAX_VALUE;
+        for (double position : positions) {
+            min = Math.min(min, position);
+        }
+        int[] rounded = new int[positions.length];
+        for (int i = 0; i < rounded.length; i++) {
+            rounded[i] = (int) Math.round(positions[i] - min + margin);
+        }
+        return rounded;
+    }
+
+    private void writePositions(int[] x, int[] y) {
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].x = x[i];
+            nodes[i].y = y[i];
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        pool.shutdown();
+    }
+}
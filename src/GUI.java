@@ -2,15 +2,36 @@ import javax.swing.*;
 import javax.swing.text.*;
 import java.awt.*;
 import java.io.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class GUI extends JFrame {
     private Graph graph;
     private AODV aodv;
     private GraphDisplay graphDisplay;
 
+    // The prefixes of log lines that are printed in bold as a whole
+    private static final String[] BOLD_PREFIXES = {"Forward Path:", "Reverse Path:", "Reversed Forward Path:"};
+    private static final Pattern WORD = Pattern.compile("\\w+"); // The pattern of a word that may be a node identifier
+    private static final long GUI_ROUTE_TIMEOUT = 60_000_000; // Routes are used by hand here, so they live a minute instead of seconds
+
     JTextPane logArea;
+    private LogDocument logDocument; // The document of the log area that inserts log lines in batches
+    private AttributeSet normal; // The style for normal log text, created once
+    private AttributeSet bold; // The style for node identifiers and path prefixes, created once
     public JComboBox<String> operationsDropdown;
+    private JButton defaultGraphButton;
+    private JButton customGraphButton;
+    private JButton cancelButton; // Button for cancelling the running discovery
+    private JProgressBar progressBar; // Progress of the running discovery
+    private DiscoveryWorker currentWorker; // The worker running the current discovery, null if none is running
+    private List<Node> liveIntermediaryPath; // The nodes the rreq of the running discovery reached so far
+    private Deque<Node> pickedNodes; // The nodes clicked in the graph, offered as input to the next operation in click order
+    private ForceLayout forceLayout; // Places the nodes in the background whenever the graph changes
     public JPanel pathContainer;
     public List<Node> highlightedPath; // List of nodes for the nodes in the path to visualize
     public List<Node> intermediaryPath; // List of nodes for the nodes in the intermediary path to visualize
@@ -24,9 +45,13 @@ public class GUI extends JFrame {
 
         graph = new Graph();
         aodv = new AODV(graph, this);
+        aodv.setActiveRouteTimeout(GUI_ROUTE_TIMEOUT);
+        aodv.getMetrics().registerMBean("gui"); // The protocol metrics can be watched in jconsole while the simulator runs
         graphDisplay = new GraphDisplay(this, graph);
         highlightedPath = null;
         intermediaryPath = null;
+        pickedNodes = new ArrayDeque<>();
+        forceLayout = new ForceLayout(graph);
 
         setupUI();
         setVisible(true);
@@ -34,8 +59,9 @@ public class GUI extends JFrame {
 
     // Method to reset all the variables when a new graph is generated
     public void resetGraphView() {
-        highlightedPath = null;
-        intermediaryPath = null;
+        setHighlightedPath(null);
+        setIntermediaryPath(null);
+        clearPickedNodes();
         pathContainer.removeAll();
         pathContainer.revalidate();
         pathContainer.repaint();
@@ -46,7 +72,11 @@ public class GUI extends JFrame {
 
     // Method to define the structure of the GUI
     private void setupUI() {
-        logArea = new JTextPane(); // Initializing the log area for decision logs
+        logDocument = new LogDocument();
+        logArea = new JTextPane(logDocument); // Initializing the log area for decision logs
+        StyleContext styleContext = StyleContext.getDefaultStyleContext(); // Creating the log styles once instead of for every message
+        normal = styleContext.addAttribute(SimpleAttributeSet.EMPTY, StyleConstants.Bold, false); // creating a non-bold style
+        bold = styleContext.addAttribute(SimpleAttributeSet.EMPTY, StyleConstants.Bold, true); // Creating a bold style
         logArea.setEditable(false); // Making the log area non-editable
         logArea.setFont(new Font("Monospaced", Font.PLAIN, 16)); // Setting the font
         JScrollPane logScroll = new JScrollPane(logArea); // Adding the log area to the JScrollPane in order to ame the log area scrollable
@@ -64,10 +94,22 @@ public class GUI extends JFrame {
         operationsDropdown.addActionListener(e -> { // Adding the action listener to the dropdown
             handleOperation((String) operationsDropdown.getSelectedItem());
             operationsDropdown.setSelectedIndex(0);
+            clearPickedNodes(); // Picked nodes are only offered to the operation that follows the clicks
         });
 
-        JButton defaultGraphButton = new JButton("Default Graph"); // Button for generating the graph from default.txt file
-        JButton customGraphButton = new JButton("Custom Graph"); // Button for generating the custom graph
+        defaultGraphButton = new JButton("Default Graph"); // Button for generating the graph from default.txt file
+        customGraphButton = new JButton("Custom Graph"); // Button for generating the custom graph
+        cancelButton = new JButton("Cancel"); // Button for cancelling a discovery that takes too long
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (currentWorker != null) {
+                currentWorker.cancel(true); // Interrupting the worker, the discovery stops at the next node it expands
+                cancelButton.setEnabled(false); // The other controls come back once the discovery has returned
+            }
+        });
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
 
         defaultGraphButton.addActionListener(e -> {
             resetGraphView(); // Reset GUI data first
@@ -80,9 +122,11 @@ public class GUI extends JFrame {
                     return;
                 }
 
-                graph.generateGraph(inputStream); // Update generateGraph() to accept InputStream
+                LoadReport report = graph.generateGraph(inputStream); // Update generateGraph() to accept InputStream
                 appendLog("DEFAULT GRAPH GENERATED!");
+                appendLog("Loaded " + report);
                 graphDisplay.repaint(); // Displaying the graph
+                startLayout(ForceLayout.DEFAULT_ITERATIONS); // Moving the nodes from their random positions
 
             } catch (IOException ex) {
                 appendLog("Error reading default graph: " + ex.getMessage());
@@ -95,6 +139,7 @@ public class GUI extends JFrame {
             createCustomGraphFromInput();
             appendLog("CUSTOM GRAPH GENERATED!");
             graphDisplay.repaint(); // Displaying the graph
+            startLayout(ForceLayout.DEFAULT_ITERATIONS);
         });
 
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10)); // Bottom panel for dropdown, default and custom graph buttons
@@ -120,6 +165,8 @@ public class GUI extends JFrame {
         bottomControlContainer.add(operationsDropdown);
         bottomControlContainer.add(defaultGraphButton);
         bottomControlContainer.add(customGraphButton);
+        bottomControlContainer.add(progressBar);
+        bottomControlContainer.add(cancelButton);
         add(bottomControlContainer, BorderLayout.SOUTH);
 
     }
@@ -169,8 +216,9 @@ public class GUI extends JFrame {
             }
 
             // Generate graph from the path where we saved the file
-            graph.generateGraph(customGraphFile.getAbsolutePath());
+            LoadReport report = graph.generateGraph(customGraphFile.getAbsolutePath());
             appendLog("CUSTOM GRAPH GENERATED!");
+            appendLog("Loaded " + report);
 
         } catch (IOException ex) {
             appendLog("Error writing the edges for custom graph: " + ex.getMessage());
@@ -178,54 +226,47 @@ public class GUI extends JFrame {
     }
 
     public void appendLog(String message) {
+        appendLogs(List.of(message));
+    }
 
-        StyledDocument styledDocument = logArea.getStyledDocument(); // Getting the styled text document for styling the logs
-        StyleContext styleContext = new StyleContext(); // Creating a separate container for managing text styles to a part of text in style document
-        AttributeSet normal = styleContext.addAttribute(SimpleAttributeSet.EMPTY, StyleConstants.Bold, false); // creating a non-bold style
-        AttributeSet bold = styleContext.addAttribute(SimpleAttributeSet.EMPTY, StyleConstants.Bold, true); // Creating a bold style
-
-        // Checking if the the message has these strings and making them bold
-        if (message.startsWith("Forward Path:") || message.startsWith("Reverse Path:") || message.startsWith("Reversed Forward Path:")) {
-            try {
-                String boldText;
-                if (message.startsWith("Forward Path:")) {
-                    boldText = "Forward Path:";
-                }
-                else if(message.startsWith("Reverse Path:")) {
-                    boldText = "Reverse Path:";
-                }
-                else {
-                    boldText = "Reversed Forward Path:";
-                }
-
-                String remainingText = message.substring(boldText.length());
-                styledDocument.insertString(styledDocument.getLength(), boldText, bold); // Making the boldText Strings bold
-                styledDocument.insertString(styledDocument.getLength(), remainingText + "\n", normal); // Letting the remaining text remain normal/non-bold
-            } catch (BadLocationException e) {
-                e.printStackTrace();
-            }
-            logArea.setCaretPosition(styledDocument.getLength());
-            return;
-        }
-        // Getting the node identifiers for making them bold
-        String[] words = message.split("(?<=\\s)|(?=\\s)|(?<=\\W)|(?=\\W)");
-        for (String word : words) {
-            String trimmed = word.replaceAll("\\W", "");
-            AttributeSet style = graph.containsNode(new Node(trimmed)) ? bold : normal;
-            try {
-                styledDocument.insertString(styledDocument.getLength(), word, style);
-            } catch (BadLocationException e) {
-                e.printStackTrace();
-            }
+    // Method for appending a whole batch of routing decisions drained from the routing log in a single document update
+    public void appendLogs(List<String> messages) {
+        for (String message : messages) {
+            appendStyledLine(message);
         }
-
         try {
-            styledDocument.insertString(styledDocument.getLength(), "\n", normal);
+            logDocument.processBatchUpdates();
         } catch (BadLocationException e) {
             e.printStackTrace();
         }
+        logArea.setCaretPosition(logDocument.getLength()); // Scrolling to the end once per batch
+    }
+
+    // Method for adding one styled log line to the pending batch of the log document
+    private void appendStyledLine(String message) {
+        // Checking if the the message has these strings and making them bold
+        for (String boldText : BOLD_PREFIXES) {
+            if (message.startsWith(boldText)) {
+                logDocument.appendBatchString(boldText, bold); // Making the boldText Strings bold
+                logDocument.appendBatchString(message.substring(boldText.length()), normal); // Letting the remaining text remain normal/non-bold
+                logDocument.appendBatchLineFeed(normal);
+                return;
+            }
+        }
 
-        logArea.setCaretPosition(styledDocument.getLength());
+        // Making the node identifiers bold and merging everything in between into normal runs
+        Matcher matcher = WORD.matcher(message);
+        int normalStart = 0;
+        while (matcher.find()) {
+            String word = matcher.group();
+            if (graph.containsIdentifier(word)) {
+                logDocument.appendBatchString(message.substring(normalStart, matcher.start()), normal);
+                logDocument.appendBatchString(word, bold);
+                normalStart = matcher.end();
+            }
+        }
+        logDocument.appendBatchString(message.substring(normalStart), normal);
+        logDocument.appendBatchLineFeed(normal);
     }
 
     // method for handling dropdown click event
@@ -257,16 +298,7 @@ public class GUI extends JFrame {
         Node destination = getNodeInput("Enter Destination Node!"); // getting the destination node with helper method getNodeInput()
 
         if (source != null && destination != null) {
-            String path = aodv.findRoute(source, destination); // Getting the path
-
-            displayRoute(path); // Displaying the path in green blocks
-
-            if (path != null && !path.isEmpty() && !path.equals("DESTINATION UNREACHABLE!")) {
-                setHighlightedPath(graph.pathToNodeList(path)); // Highlighting the nodes in the path in the graph
-            } else {
-                SwingUtilities.invokeLater(() -> appendLog("DESTINATION UNREACHABLE!"));
-                setHighlightedPath(null);
-            }
+            runDiscovery(source, destination, false); // Finding the route in the background
         }
     }
 
@@ -277,26 +309,65 @@ public class GUI extends JFrame {
 
         if (source != null && destination != null) {
             appendLog("DATA TRANSFER START FROM " + source + " TO " +destination);
-            String path = aodv.sendData(source, destination, true); // Getting the path
-
-            if(path != null) {
-                displayRoute(path); // Displaying the path in green blocks
-
-                if ((!(path.contains("missing"))) && !path.isEmpty() && !path.equals("DESTINATION UNREACHABLE!")) {
-                    setHighlightedPath(graph.pathToNodeList(path)); // Highlighting the nodes in the path in the graph
-                    SwingUtilities.invokeLater(() -> appendLog(path));
-                } else {
-                    String recoveredPath = aodv.findRoute(source, destination); // Recovering the path
-                    displayRoute(recoveredPath); // Displaying the recovered path in green blocks
-
-                    if ((!(recoveredPath.contains("missing"))) && !recoveredPath.isEmpty() && !recoveredPath.equals("DESTINATION UNREACHABLE!")) {
-                        setHighlightedPath(graph.pathToNodeList(recoveredPath)); // Highlighting the nodes in the recovered path in the graph
-                    } else {
-                        SwingUtilities.invokeLater(() -> appendLog("DESTINATION UNREACHABLE!"));
-                        setHighlightedPath(null);
-                    }
-                }
+            runDiscovery(source, destination, true); // Sending the data and recovering the route in the background
+        }
+    }
+
+    // Method for running a discovery or data transfer on a background worker while the window stays responsive
+    private void runDiscovery(Node source, Node destination, boolean sendData) {
+        liveIntermediaryPath = new ArrayList<>();
+        setIntermediaryPath(null);
+        currentWorker = new DiscoveryWorker(this, aodv, source, destination, sendData, graph.getAllNodes().size());
+        currentWorker.addPropertyChangeListener(e -> { // Updating the progress bar as the rreq spreads
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue());
             }
+        });
+        setDiscoveryRunning(true);
+        currentWorker.execute();
+    }
+
+    // Method for disabling the controls that would change the graph while a discovery is running
+    private void setDiscoveryRunning(boolean running) {
+        operationsDropdown.setEnabled(!running);
+        defaultGraphButton.setEnabled(!running);
+        customGraphButton.setEnabled(!running);
+        cancelButton.setEnabled(running);
+        progressBar.setValue(0);
+        progressBar.setVisible(running);
+    }
+
+    // Method for adding the nodes the rreq reached so far to the intermediary path while the discovery is running
+    public void addIntermediaryNodes(List<Node> nodes) {
+        if (liveIntermediaryPath != null) {
+            liveIntermediaryPath.addAll(nodes);
+            this.intermediaryPath = liveIntermediaryPath;
+            graphDisplay.addIntermediaryNodes(nodes); // Only the newly reached nodes are repainted
+        }
+    }
+
+    // Method for showing the route found by a background worker, executed on the event dispatch thread
+    public void showRouteResult(RouteResult route, boolean sendData, Node source) {
+        currentWorker = null;
+        liveIntermediaryPath = null;
+        setDiscoveryRunning(false);
+
+        // Nothing is displayed if the source has no route to send the data along at all
+        if (sendData && route.getStatus() == RouteResult.Status.NO_ROUTE && route.getFailedAt() == source) {
+            return;
+        }
+
+        displayRoute(route); // Displaying the path in green blocks
+
+        if (route.isFound()) {
+            setHighlightedPath(route.getPath()); // Highlighting the nodes in the path in the graph
+            if (sendData) {
+                appendLog(route.toString());
+            }
+        } else {
+            boolean unfinished = route.getStatus() == RouteResult.Status.CANCELLED || route.getStatus() == RouteResult.Status.RATE_LIMITED;
+            appendLog(unfinished ? route.toString() : "DESTINATION UNREACHABLE!");
+            setHighlightedPath(null);
         }
     }
 
@@ -307,6 +378,7 @@ public class GUI extends JFrame {
             if (graph.addNode(node)) {
                 appendLog("Node " + node + " added!");
                 graphDisplay.repaint(); // Updating the graph with new node
+                startLayout(ForceLayout.REFINE_ITERATIONS);
                 setIntermediaryPath(null);
                 setHighlightedPath(null);
                 displayRoute(null);
@@ -322,6 +394,7 @@ public class GUI extends JFrame {
             if (graph.removeNode(node)) { // Removing the node
                 appendLog("Node " + node + " removed!");
                 graphDisplay.repaint(); // Updating the graph with removed node
+                startLayout(ForceLayout.REFINE_ITERATIONS);
                 setIntermediaryPath(null);
                 setHighlightedPath(null);
                 displayRoute(null);
@@ -338,6 +411,7 @@ public class GUI extends JFrame {
             if (graph.addEdge(source, destination)) { // Adding the edge to the graph
                 appendLog("Edge added: " + source + " -> " + destination);
                 graphDisplay.repaint(); // Updating the graph with new edge
+                startLayout(ForceLayout.REFINE_ITERATIONS);
                 setIntermediaryPath(null);
                 setHighlightedPath(null);
                 displayRoute(null);
@@ -354,6 +428,7 @@ public class GUI extends JFrame {
             if (graph.removeEdge(source, destination)) { // Removing the edge from the graph
                 appendLog("Edge removed: " + source + " -> " + destination);
                 graphDisplay.repaint(); // Updating the graph with removed edge
+                startLayout(ForceLayout.REFINE_ITERATIONS);
                 setIntermediaryPath(null);
                 setHighlightedPath(null);
                 displayRoute(null);
@@ -363,9 +438,35 @@ public class GUI extends JFrame {
         }
     }
 
+    // Method for laying out the graph in the background, the nodes move on the event dispatch thread as the layout converges
+    private void startLayout(int iterations) {
+        forceLayout.start(iterations, SwingUtilities::invokeLater, graphDisplay::invalidateTopology);
+    }
+
+    // Method for picking a node by clicking on it in the graph, the next operation offers the picked nodes as its input
+    public void nodePicked(Node node) {
+        if (pickedNodes.remove(node)) { // Clicking a picked node again takes it back
+            graphDisplay.setPickedNodes(pickedNodes);
+            return;
+        }
+        if (pickedNodes.size() == 2) {
+            pickedNodes.poll(); // Operations take two nodes at most, the oldest pick is dropped
+        }
+        pickedNodes.add(node);
+        graphDisplay.setPickedNodes(pickedNodes);
+    }
+
+    private void clearPickedNodes() {
+        pickedNodes.clear();
+        graphDisplay.setPickedNodes(pickedNodes);
+    }
+
     // A helper method for getting nodes for other methods
+    // The dialog is filled with the next node picked in the graph, if any
     private Node getNodeInput(String message) {
-        String identifier = JOptionPane.showInputDialog(this, message);
+        Node picked = pickedNodes.poll();
+        String identifier = (String) JOptionPane.showInputDialog(this, message, "Input", JOptionPane.QUESTION_MESSAGE,
+                null, null, picked == null ? null : picked.identifier);
         if (identifier != null && !identifier.isEmpty()) {
             Node node = graph.getNode(identifier.trim().toUpperCase());
             if (graph.containsNode(node)) {
@@ -378,18 +479,18 @@ public class GUI extends JFrame {
         return null;
     }
 
-    public void displayRoute(String path) {
+    public void displayRoute(RouteResult route) {
         pathContainer.removeAll(); // Resetting the path container first
 
-        if (path == null || path.isEmpty()) {
+        if (route == null) {
             // Resetting the view
             pathContainer.revalidate();
             pathContainer.repaint();
             return;
         }
 
-        if (path.equals("DESTINATION UNREACHABLE!")) { // If the path reads Destination Unreachable, creating a lable ffor it to display on graph tab
-            JLabel unreachableLabel = new JLabel("DESTINATION UNREACHABLE!");
+        if (!route.isFound()) { // If no route was found, creating a lable ffor it to display on graph tab
+            JLabel unreachableLabel = new JLabel(route.getStatus() == RouteResult.Status.UNREACHABLE ? "DESTINATION UNREACHABLE!" : route.toString());
             unreachableLabel.setOpaque(true);
             unreachableLabel.setBackground(Color.RED);
             unreachableLabel.setForeground(Color.WHITE);
@@ -404,12 +505,11 @@ public class GUI extends JFrame {
             return;
         }
 
-        String[] nodes = path.split("->"); // Getting the nodes in the path in the array
+        List<Node> nodes = route.getPath(); // Getting the nodes in the path
 
         // Creating green boxes for the nodes in the graph and adding the identifier at the centre
-        for (int i = 0; i < nodes.length; i++) {
-            String node = nodes[i].trim();
-            JLabel nodeLabel = new JLabel(node);
+        for (int i = 0; i < nodes.size(); i++) {
+            JLabel nodeLabel = new JLabel(nodes.get(i).identifier);
             nodeLabel.setOpaque(true);
             nodeLabel.setBackground(Color.GREEN);
             nodeLabel.setForeground(Color.BLACK);
@@ -419,7 +519,7 @@ public class GUI extends JFrame {
 
             pathContainer.add(nodeLabel); // Adding the box to the path container
 
-            if (i < nodes.length - 1) { // Creating the arrow to show from-to
+            if (i < nodes.size() - 1) { // Creating the arrow to show from-to
                 JLabel arrow = new JLabel("→");
                 arrow.setFont(new Font("SansSerif", Font.BOLD, 16));
                 arrow.setHorizontalAlignment(SwingConstants.CENTER);
@@ -436,11 +536,11 @@ public class GUI extends JFrame {
     // Method for highlighting the nodes in the path in the graph
     public void setHighlightedPath(List<Node> path) {
         this.highlightedPath = path;
-        graphDisplay.repaint();
+        graphDisplay.setHighlightedNodes(path);
     }
     // Method for highlighting the nodes in the intermediary path in the graph
     public void setIntermediaryPath(List<Node> path) {
         this.intermediaryPath = path;
-        graphDisplay.repaint();
+        graphDisplay.setIntermediaryNodes(path);
     }
 }
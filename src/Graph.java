@@ -1,18 +1,49 @@
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class Graph {
 
-    private Map<Node, Set<Edge>> adjacencyList; // A map from node to set of edges for storing the graph
+    private Map<Node, Map<Node, Edge>> adjacencyList; // A map from node to its neighbours and the edges leading to them
+    private Map<String, Node> nodeIndex; // A map from identifier to node for constant time lookups
+    // The dense id of every identifier added since the graph was last cleared, a removed node gets its id back when it is
+    // added again so that the routes to it still find it
+    private Map<String, Integer> ids;
+    // The node currently holding each id, null once it was removed, volatile so that threads reading it for statistics
+    // see the table when it grows
+    private volatile Node[] nodesById;
+    private int idCount; // The number of ids handed out so far
+    private Set<Edge> edges; // Every undirected edge once, in the direction it was first added
+    private Set<Edge> edgesView; // Read only view of the edges handed out by getEdges()
+    private long version; // Incremented on every change of the topology so that views can tell when to redraw
+    private Node[][] neighbourArrays; // The neighbours of every node indexed by id, for floods that must not allocate
+    private BitSet staleNeighbours; // The ids of the nodes whose neighbour arrays have to be rebuilt before they are handed out
 
     public Graph() {
         this.adjacencyList = new HashMap<>();
+        this.nodeIndex = new HashMap<>();
+        this.ids = new HashMap<>();
+        this.nodesById = new Node[64];
+        this.edges = new LinkedHashSet<>();
+        this.edgesView = Collections.unmodifiableSet(edges);
+        this.neighbourArrays = new Node[0][];
+        this.staleNeighbours = new BitSet();
     }
 
     // Method for adding the node
     public boolean addNode(Node node) {
+        return addNode(node, 0);
+    }
+
+    // Method for adding a node whose number of neighbours is known, so that its map of edges never has to grow
+    boolean addNode(Node node, int expectedDegree) {
         if(!adjacencyList.containsKey(node)) {
-            adjacencyList.put(node, new HashSet<>());
+            adjacencyList.put(node, expectedDegree == 0 ? new HashMap<>() : new HashMap<>(capacityFor(expectedDegree)));
+            nodeIndex.put(node.identifier, node); // Keeping the identifier index in sync with the adjacency list
+            assignId(node);
+            staleNeighbours.set(node.id);
+            version++;
             return true;
         }
         return false;
@@ -23,12 +54,16 @@ public class Graph {
         if(!(adjacencyList.containsKey(source)) || !(adjacencyList.containsKey(destination))) {
             return false;
         }
-        Edge edge1 = new Edge(source, destination); // Creating the edge from source to destination
-        Edge edge2 = new Edge(destination, source); // Creating the edge from destination to source
-        Set<Edge> sourceEdges = adjacencyList.get(source); // getting the set of edges of the source node
-        Set<Edge> destinationEdges = adjacencyList.get(destination); // getting the set of edges of the destination node
-        sourceEdges.add(edge1); // Adding the edge to the set of edges of the source
-        destinationEdges.add(edge2);  // Adding the edge to the set of edges of the destination
+        Map<Node, Edge> sourceEdges = adjacencyList.get(source); // getting the edges of the source node keyed by neighbour
+        Map<Node, Edge> destinationEdges = adjacencyList.get(destination); // getting the edges of the destination node keyed by neighbour
+        Edge edge = new Edge(source, destination);
+        if (sourceEdges.putIfAbsent(destination, edge) == null) { // Adding the edge from source to destination
+            edges.add(edge); // Recording the edge once for both directions
+        }
+        destinationEdges.putIfAbsent(source, new Edge(destination, source));  // Adding the edge from destination to source
+        staleNeighbours.set(source.id);
+        staleNeighbours.set(destination.id);
+        version++;
         return true;
     }
 
@@ -37,12 +72,14 @@ public class Graph {
         if(!(adjacencyList.containsKey(source) && adjacencyList.containsKey(destination))) {
             return false;
         }
-        Edge edge1 = new Edge(source, destination); // Creating the edge from source to destination to check if it exists
-        Edge edge2 = new Edge(destination, source); // Creating the edge from destination to source to check if it exists
-        Set<Edge> sourcesEdges = adjacencyList.get(source); // getting the set of edges of the source node
-        Set<Edge> destinationEdges = adjacencyList.get(destination); // getting the set of edges of the destination node
-        sourcesEdges.remove(edge1); // removing the edge from the set of edges of the source
-        destinationEdges.remove(edge2); // removing the edge from the set of edges of the destination
+        Edge edge = adjacencyList.get(source).remove(destination); // removing the edge from the edges of the source
+        adjacencyList.get(destination).remove(source); // removing the edge from the edges of the destination
+        if (edge != null) {
+            removeUndirectedEdge(edge);
+        }
+        staleNeighbours.set(source.id);
+        staleNeighbours.set(destination.id);
+        version++;
         return true;
     }
 
@@ -51,17 +88,19 @@ public class Graph {
         if(!(adjacencyList.containsKey(node))) {
             return false;
         }
-        // traversing through the values of the adjacency list
-        for (Set<Edge> setsOfEdges : adjacencyList.values()) {
-            Iterator<Edge> singleSet = setsOfEdges.iterator(); // Creating an iterator for the set of edges
-            while (singleSet.hasNext()) { // Traversing through the iterator
-                Edge edge = singleSet.next(); // Getting the current edge
-                if (edge.source.equals(node) || edge.destination.equals(node)) { // Checking if the edge contains the node as a source or a destination
-                    singleSet.remove(); // Removing the edge if condition fulfills
-                }
+        // Only the neighbours of the node can hold an edge back to it, so only their edges are touched
+        for (Edge edge : adjacencyList.get(node).values()) {
+            if (!edge.destination.equals(node)) { // A self loop goes away with the node itself
+                adjacencyList.get(edge.destination).remove(node); // Removing the edge from the neighbour back to the node
+                staleNeighbours.set(edge.destination.id);
             }
+            removeUndirectedEdge(edge);
         }
         adjacencyList.remove(node); // Removing the node finally
+        nodeIndex.remove(node.identifier); // Removing the node from the identifier index
+        nodesById[node.id] = null;
+        staleNeighbours.set(node.id);
+        version++;
         return true;
     }
 
@@ -71,95 +110,84 @@ public class Graph {
             return null;
         }
 
-        Set<Edge> edges = adjacencyList.get(node); // Getting the set of edges of node
-        ArrayList<Node> neighbours = new ArrayList<>(); // Creating an ArrayList of nodes to hold the neighbours
+        return new ArrayList<>(adjacencyList.get(node).keySet()); // Returning a copy of the neighbours of the node
+    }
+
+    // Method for visiting the neighbours of a node without copying them into a new list
+    public void forEachNeighbourOf(Node node, Consumer<Node> action) {
+        Map<Node, Edge> edges = adjacencyList.get(node);
+        if(edges != null) {
+            edges.keySet().forEach(action);
+        }
+    }
+
+    // Method for giving a node the id of its identifier, a new one the first time the identifier is added
+    private void assignId(Node node) {
+        Integer id = ids.get(node.identifier);
+        if(id == null) {
+            id = idCount++;
+            ids.put(node.identifier, id);
+        }
+        node.id = id;
+        if(id >= nodesById.length) {
+            nodesById = Arrays.copyOf(nodesById, Math.max(nodesById.length * 2, id + 1)); // Growing the table when the id does not fit
+        }
+        nodesById[id] = node;
+    }
+
+    // Method for getting the nodes indexed by id, null for the ids without a node
+    // The array belongs to the graph and only the thread changing the graph writes it, so unlike the node set it can be
+    // walked from other threads without running into a change, it may just miss a node added meanwhile
+    public Node[] getNodesById() {
+        return nodesById;
+    }
+
+    // Method for getting the number of ids handed out so far, used for sizing id indexed arrays
+    public int getIdCount() {
+        return idCount;
+    }
 
-        // Traversing through the set of edges
-        for(Edge edge: edges) {
-            neighbours.add(edge.destination); // Adding the destination to the list of neighbours
+    // Method for getting the neighbours of every node in arrays indexed by node id, an entry is null for an id without a node
+    // Only the arrays of the nodes whose edges changed since the last call are rebuilt, the arrays must not be modified
+    // Synchronized so that the arrays are fully visible to the discoveries of other threads that flood with them
+    public synchronized Node[][] getNeighbourArrays() {
+        if(neighbourArrays.length < idCount) {
+            neighbourArrays = Arrays.copyOf(neighbourArrays, idCount);
+        }
+        for(int id = staleNeighbours.nextSetBit(0); id >= 0; id = staleNeighbours.nextSetBit(id + 1)) {
+            Map<Node, Edge> edges = adjacencyList.get(nodesById[id]); // null once the node was removed
+            neighbourArrays[id] = edges == null ? null : edges.keySet().toArray(new Node[0]);
         }
+        staleNeighbours.clear();
+        return neighbourArrays;
+    }
 
-        return neighbours; // Returning the list of neighbours
+    // Method for getting the number of neighbours of a node
+    public int degreeOf(Node node) {
+        Map<Node, Edge> edges = adjacencyList.get(node);
+        return edges == null ? 0 : edges.size();
     }
 
     // Method for getting a specific node from the adjacency list
     public Node getNode(String identifier) {
-        for(Node node: adjacencyList.keySet()) {
-            if(node.identifier.equals(identifier)) {
-                return node;
-            }
-        }
-        return null;
-    }
-
-    // Method for Generating the graph from .txt files
-    public void generateGraph(String edgeFile) {
-        // Wrapping the file reader for edge file around Buffered Reader to read full lines together
-        try(BufferedReader buffer = new BufferedReader(new FileReader(edgeFile))) {
-            String line;
-            while((line = buffer.readLine()) != null) {
-                String[] edge = line.split(" "); // Splitting the line with a space and adding the nodes in the array of Strings
-                if(edge.length == 2) {
-                    String source = edge[0]; // getting the first element in the array as the source
-                    String destination = edge[1]; // getting the second element in the array as the destination
-
-                    Node sourceNode = getNode(source); // getting the source node from the adjacency list
-                    Node destinationNode = getNode(destination); // getting the destination node from the adjacency list
-
-                    // creating the source node if it does not exist in the adjacency list
-                    if(sourceNode == null) {
-                        sourceNode = new Node(source);
-                        addNode(sourceNode);
-                    }
-                    // creating the destination node if it does not exist in the adjacency list
-                    if(destinationNode == null) {
-                        destinationNode = new Node(destination);
-                        addNode(destinationNode);
-                    }
-
-                    addEdge(sourceNode, destinationNode); // Creating the edge between the source and destination
-                }
-            }
-        } catch(IOException e) {
+        return nodeIndex.get(identifier); // Looking the node up in the identifier index instead of scanning every node
+    }
 
-        }
+    // Method for Generating the graph from .txt files, the file may also be gzip compressed
+    public LoadReport generateGraph(String edgeFile) throws IOException {
+        return new TopologyLoader(this).load(Path.of(edgeFile));
     }
 
     // Overloading the generateGraph() method so that it can also generate graphs using input stream
     // we specifically did this for .jar file otherwise, the .jar file won't be able to locate the default.txt file
-    public void generateGraph(InputStream inputStream) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while((line = reader.readLine()) != null) {
-                String[] edge = line.split(" "); // Splitting the line with a space and adding the nodes in the array of Strings
-                if(edge.length == 2) {
-                    String source = edge[0]; // getting the first element in the array as the source
-                    String destination = edge[1]; // getting the second element in the array as the destination
-
-                    Node sourceNode = getNode(source); // getting the source node from the adjacency list
-                    Node destinationNode = getNode(destination); // getting the destination node from the adjacency list
-
-                    // creating the source node if it does not exist in the adjacency list
-                    if(sourceNode == null) {
-                        sourceNode = new Node(source);
-                        addNode(sourceNode);
-                    }
-                    // creating the destination node if it does not exist in the adjacency list
-                    if(destinationNode == null) {
-                        destinationNode = new Node(destination);
-                        addNode(destinationNode);
-                    }
-
-                    addEdge(sourceNode, destinationNode); // Creating the edge between the source and destination
-                }
-            }
-        }
+    public LoadReport generateGraph(InputStream inputStream) throws IOException {
+        return new TopologyLoader(this).load(inputStream);
     }
 
     public void displayGraph() {
-        for (Map.Entry<Node, Set<Edge>> node : adjacencyList.entrySet()) {
+        for (Map.Entry<Node, Map<Node, Edge>> node : adjacencyList.entrySet()) {
             System.out.print(node.getKey().identifier + " -> [ ");
-            for (Edge edge : node.getValue()) {
+            for (Edge edge : node.getValue().values()) {
                 System.out.print(edge.source.identifier + edge.destination.identifier + " ");
             }
             System.out.print("]");
@@ -177,14 +205,20 @@ public class Graph {
         return adjacencyList.containsKey(node);
     }
 
+    // method for checking if a node with the given identifier exists without creating a Node
+    public boolean containsIdentifier(String identifier) {
+        return nodeIndex.containsKey(identifier);
+    }
+
     // method for checking if a specific edge exists in the adjacency list
     public boolean containsEdge(Edge edge) {
-        for (Set<Edge> setsOfEdges : adjacencyList.values()) {
-            if(setsOfEdges.contains(edge)) {
-                return true;
-            }
-        }
-        return false;
+        return containsEdge(edge.source, edge.destination);
+    }
+
+    // Overloaded method for checking an edge by its end points without allocating an Edge
+    public boolean containsEdge(Node source, Node destination) {
+        Map<Node, Edge> edges = adjacencyList.get(source); // Only the source node's neighbours have to be probed
+        return edges != null && edges.containsKey(destination);
     }
 
     // Method for getting all the nodes included in a path
@@ -199,28 +233,52 @@ public class Graph {
         return list;
     }
 
-    // Method for getting all the edges in the adjacency list for coloring the relevant ones in GraphDisplay class
+    // Method for getting all the edges in the graph once each, for drawing them in GraphDisplay class
+    // The returned set is a read only view that follows later changes of the graph
     public Set<Edge> getEdges() {
-        Set<Edge> uniqueEdges = new HashSet<>(); // For storing the unique edges
-        Set<String> visitedPairs = new HashSet<>(); // For avoid edges that have been added to unique edges
-
-        for (Set<Edge> edgeSet : adjacencyList.values()) { // Traversing through the values of adjacency lost
-            for (Edge edge : edgeSet) { // traversing through the edges in the current set of edges
-                String direct = edge.source.identifier + "-" + edge.destination.identifier; // creating a string to represent the edge from source to destination
-                String reverse = edge.destination.identifier + "-" + edge.source.identifier; // creating a string to represent the edge from destination to source
-                // Checking if direct and reverse edges have been added to the unique set of edges
-                if (!visitedPairs.contains(direct) && !visitedPairs.contains(reverse)) {
-                    uniqueEdges.add(edge); // Adding the edge to unique edges
-                    visitedPairs.add(direct); // Adding the direct edge to visited pairs
-                }
+        return edgesView;
+    }
+
+    // Method for removing an undirected edge given in either direction from the edge set
+    private void removeUndirectedEdge(Edge edge) {
+        if (!edges.remove(edge)) {
+            edges.remove(new Edge(edge.destination, edge.source)); // The edge was first added from the other end
+        }
+    }
+
+    // Method for sizing an empty graph for the given number of nodes and edges before loading them in bulk
+    void reserve(int nodeCount, int edgeCount) {
+        if(adjacencyList.isEmpty()) {
+            adjacencyList = new HashMap<>(capacityFor(nodeCount));
+            nodeIndex = new HashMap<>(capacityFor(nodeCount));
+            if(ids.isEmpty()) { // Keeping the ids of the nodes that were removed, the routing tables may still hold them
+                ids = new HashMap<>(capacityFor(nodeCount));
             }
+            edges = new LinkedHashSet<>(capacityFor(edgeCount));
+            edgesView = Collections.unmodifiableSet(edges);
         }
+    }
+
+    // The capacity a hash map needs for holding the given number of entries without growing
+    private static int capacityFor(int entries) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(entries / 0.75));
+    }
 
-        return uniqueEdges;
+    // Method for getting the number of changes made to the topology so far
+    public long getVersion() {
+        return version;
     }
 
     // Method for clearing the adjacency list executed when a new graph is generated
     public void clearCurrentGraph() {
         adjacencyList.clear();
+        nodeIndex.clear();
+        ids.clear(); // The nodes of the next graph are numbered from 0 again
+        nodesById = new Node[64];
+        idCount = 0;
+        edges.clear();
+        neighbourArrays = new Node[0][];
+        staleNeighbours.clear();
+        version++;
     }
 }
@@ -1,13 +1,181 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.List;
 
 public class GraphDisplay extends JPanel {
+    private static final int NODE_RADIUS = 15;
+    private static final double MIN_SCALE = 0.02;
+    private static final double MAX_SCALE = 8;
+    private static final double LABEL_SCALE = 0.6; // Below this zoom the identifiers no longer fit into the nodes and are left out
+    private static final double DETAIL_SCALE = 0.25; // Below this zoom nodes are drawn as small squares without borders
+
     GUI gui;
     Graph graph;
+
+    private BufferedImage topologyLayer; // The edges and nodes in their default colors, drawn once per change of the graph
+    private long topologyVersion; // The version of the graph the topology layer was drawn for
+    private boolean topologyInvalid; // Set when node positions or the viewport changed without the graph changing
+    private SpatialIndex spatialIndex; // Grid over the node positions for culling and for resolving clicks
+    private long indexVersion; // The version of the graph the spatial index was built for
+    private boolean indexInvalid; // Set when node positions changed, a change of the viewport keeps the index
+    private int edgeSpanX; // The widest horizontal extent of an edge, how far beyond the view an edge in view can start
+    private int edgeSpanY; // The same vertically
+
+    // The viewport, a point of the graph is drawn at ((x - originX) * scale, (y - originY) * scale) on the panel
+    private double scale;
+    private double originX;
+    private double originY;
+    private Point dragStart; // The last mouse position while the graph is being dragged, null otherwise
+    private boolean dragged; // Set if the mouse moved since it was pressed, so the release is not taken as a click
+
+    // The nodes of the paths drawn on top of the topology layer, hash sets so that membership checks are constant time
+    private Set<Node> highlightedNodes;
+    private Set<Node> intermediaryNodes;
+    private Set<Node> pickedNodes; // The nodes picked by clicking on them, outlined until they are used
+
     public GraphDisplay(GUI gui, Graph graph) {
         this.gui = gui;
         this.graph = graph;
+        this.topologyVersion = -1;
+        this.highlightedNodes = new HashSet<>();
+        this.intermediaryNodes = new HashSet<>();
+        this.pickedNodes = new HashSet<>();
+        this.spatialIndex = new SpatialIndex();
+        this.indexVersion = -1;
+        this.scale = 1;
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+                dragged = false;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart == null) {
+                    return;
+                }
+                // Moving the viewport along with the mouse
+                originX -= (e.getX() - dragStart.x) / scale;
+                originY -= (e.getY() - dragStart.y) / scale;
+                dragStart = e.getPoint();
+                dragged = true;
+                invalidateViewport();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragStart = null;
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (dragged) {
+                    return;
+                }
+                Node node = nodeAt(e.getX(), e.getY());
+                if (node != null && gui != null) {
+                    gui.nodePicked(node);
+                }
+                else if (node == null && e.getClickCount() == 2) {
+                    resetViewport(); // Double clicking the background brings back the default view
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(1.1, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+        addMouseWheelListener(mouseHandler);
+    }
+
+    // Method for zooming by the given factor while keeping the point of the graph under the mouse in place
+    public void zoom(double factor, int screenX, int screenY) {
+        double graphX = originX + screenX / scale;
+        double graphY = originY + screenY / scale;
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        originX = graphX - screenX / scale;
+        originY = graphY - screenY / scale;
+        invalidateViewport();
+    }
+
+    public void resetViewport() {
+        scale = 1;
+        originX = 0;
+        originY = 0;
+        invalidateViewport();
+    }
+
+    // Method for finding the node drawn at a point of the panel, returns null if the point is not on a node
+    public Node nodeAt(int screenX, int screenY) {
+        updateSpatialIndex();
+        return spatialIndex.nearest((int) Math.round(originX + screenX / scale), (int) Math.round(originY + screenY / scale), NODE_RADIUS);
+    }
+
+    // Method for replacing the outlined nodes picked by clicking on them
+    public void setPickedNodes(Collection<Node> nodes) {
+        Rectangle dirty = boundsOf(pickedNodes, null);
+        pickedNodes = new HashSet<>(nodes);
+        repaintRegion(boundsOf(pickedNodes, dirty));
+    }
+
+    // Method for replacing the highlighted path, only the area covered by the old and the new path is repainted
+    public void setHighlightedNodes(List<Node> path) {
+        Rectangle dirty = boundsOf(highlightedNodes, null);
+        highlightedNodes = path == null ? new HashSet<>() : new HashSet<>(path);
+        repaintRegion(boundsOf(highlightedNodes, dirty));
+    }
+
+    // Method for replacing the intermediary path, only the area covered by the old and the new path is repainted
+    public void setIntermediaryNodes(List<Node> path) {
+        Rectangle dirty = boundsOf(intermediaryNodes, null);
+        intermediaryNodes = path == null ? new HashSet<>() : new HashSet<>(path);
+        repaintRegion(boundsOf(intermediaryNodes, dirty));
+    }
+
+    // Method for adding nodes to the intermediary path while a discovery is running, only the new nodes are repainted
+    public void addIntermediaryNodes(List<Node> nodes) {
+        intermediaryNodes.addAll(nodes);
+        repaintRegion(boundsOf(nodes, null));
+    }
+
+    // Method for redrawing the topology layer and rebuilding the spatial index on the next repaint, used when nodes are moved
+    public void invalidateTopology() {
+        indexInvalid = true;
+        topologyInvalid = true;
+        repaint();
+    }
+
+    // Method for redrawing the topology layer on the next repaint when the viewport was panned or zoomed
+    private void invalidateViewport() {
+        topologyInvalid = true;
+        repaint();
+    }
+
+    // Method for rebuilding the spatial index if nodes were added, removed or moved since it was built
+    private void updateSpatialIndex() {
+        if (indexVersion != graph.getVersion() || indexInvalid) {
+            spatialIndex.rebuild(graph.getAllNodes());
+            indexVersion = graph.getVersion();
+            indexInvalid = false;
+
+            // Measuring the longest edges so that the edges crossing the view can be found from the nodes near it
+            edgeSpanX = 0;
+            edgeSpanY = 0;
+            for (Edge edge : graph.getEdges()) {
+                edgeSpanX = Math.max(edgeSpanX, Math.abs(edge.source.x - edge.destination.x));
+                edgeSpanY = Math.max(edgeSpanY, Math.abs(edge.source.y - edge.destination.y));
+            }
+        }
     }
 
     @Override
@@ -15,71 +183,152 @@ public class GraphDisplay extends JPanel {
         // Calling the superclass JPanel method to clear the panel and ensure proper repainting
         super.paintComponent(graphics);
 
-        // A map to hold colors assigned to each node based on its role (final, intermediary, or default)
-        Map<Node, Color> nodeColors = new HashMap<>();
+        // Redrawing the topology layer only if the graph, the viewport or the size of the panel changed
+        if (topologyLayer == null || topologyInvalid || topologyVersion != graph.getVersion()
+                || topologyLayer.getWidth() != Math.max(getWidth(), 1) || topologyLayer.getHeight() != Math.max(getHeight(), 1)) {
+            drawTopologyLayer();
+        }
+        graphics.drawImage(topologyLayer, 0, 0, null);
+
+        // Drawing the intermediary path first so that the final path appears on top of it
+        Graphics2D overlay = (Graphics2D) graphics.create();
+        applyViewport(overlay);
+        drawOverlay(overlay, intermediaryNodes, Color.BLUE);
+        drawOverlay(overlay, highlightedNodes, Color.GREEN);
+        overlay.setColor(Color.ORANGE);
+        overlay.setStroke(new BasicStroke(3));
+        for (Node node : pickedNodes) {
+            overlay.drawOval(node.x - NODE_RADIUS - 2, node.y - NODE_RADIUS - 2, 2 * NODE_RADIUS + 4, 2 * NODE_RADIUS + 4);
+        }
+        overlay.dispose();
+    }
 
-        // Determining the color for each node based on its presence in highlighted or intermediary paths
-        for (Node node : graph.getAllNodes()) {
-            boolean isFinal = gui.highlightedPath != null && gui.highlightedPath.contains(node);
-            boolean isIntermediary = gui.intermediaryPath != null && gui.intermediaryPath.contains(node);
+    private void applyViewport(Graphics2D graphics) {
+        graphics.scale(scale, scale);
+        graphics.translate(-originX, -originY);
+        graphics.setFont(getFont());
+    }
 
-            if (isFinal) {
-                nodeColors.put(node, Color.GREEN); // Node is part of the final path
-            } else if (isIntermediary) {
-                nodeColors.put(node, Color.BLUE);  // Node is part of an intermediary path
-            } else {
-                nodeColors.put(node, Color.LIGHT_GRAY); // Default color for all other nodes
-            }
+    // Method for getting the area of the graph visible in the panel, widened by a node so that nodes on the border are drawn
+    private Rectangle visibleArea() {
+        return new Rectangle((int) Math.floor(originX) - NODE_RADIUS - 1, (int) Math.floor(originY) - NODE_RADIUS - 1,
+                (int) Math.ceil(getWidth() / scale) + 2 * NODE_RADIUS + 2, (int) Math.ceil(getHeight() / scale) + 2 * NODE_RADIUS + 2);
+    }
+
+    // Method for checking if an edge can cross the visible area, only its bounding box is compared
+    private static boolean edgeInView(Rectangle view, Node source, Node destination) {
+        return Math.max(source.x, destination.x) >= view.x && Math.min(source.x, destination.x) <= view.x + view.width
+                && Math.max(source.y, destination.y) >= view.y && Math.min(source.y, destination.y) <= view.y + view.height;
+    }
+
+    // Method for drawing the edges and nodes in view in their default colors into the off-screen topology layer
+    private void drawTopologyLayer() {
+        updateSpatialIndex();
+        topologyLayer = new BufferedImage(Math.max(getWidth(), 1), Math.max(getHeight(), 1), BufferedImage.TYPE_INT_ARGB);
+        topologyVersion = graph.getVersion();
+        topologyInvalid = false;
+
+        Graphics2D graphics = topologyLayer.createGraphics();
+        applyViewport(graphics);
+        graphics.setStroke(new BasicStroke((float) Math.min(1, 1 / scale))); // Keeping edges one pixel wide when zoomed in
+        Rectangle view = visibleArea();
+        graphics.setColor(Color.BLACK); // Default edge color
+
+        // An edge in view has both ends within the longest edge of the view, so only the edges of those nodes are checked
+        // Every edge is drawn once, from the end with the lower id
+        spatialIndex.forEachIn(view.x - edgeSpanX, view.y - edgeSpanY, view.x + view.width + edgeSpanX, view.y + view.height + edgeSpanY,
+                node -> graph.forEachNeighbourOf(node, neighbour -> {
+                    if (neighbour.id > node.id && edgeInView(view, node, neighbour)) {
+                        // Drawing the edge as a line between source and destination
+                        graphics.drawLine(node.x, node.y, neighbour.x, neighbour.y);
+                    }
+                }));
+
+        // Drawing the nodes after drawing edges so nodes appear on top
+        spatialIndex.forEachIn(view.x, view.y, view.x + view.width, view.y + view.height,
+                node -> drawNode(graphics, node, Color.LIGHT_GRAY)); // Default color for all the nodes
+        graphics.dispose();
+    }
+
+    // Method for drawing the nodes of a path and the edges between them in the color of the path
+    private void drawOverlay(Graphics2D graphics, Set<Node> nodes, Color color) {
+        if (nodes.isEmpty()) {
+            return;
         }
+        Rectangle clip = graphics.getClipBounds(); // The dirty region in coordinates of the graph
+        Rectangle view = clip == null ? visibleArea() : clip.intersection(visibleArea());
 
-        // Drawing edges between nodes
-        for (Edge edge : graph.getEdges()) {
-            Node source = edge.getSource();
-            Node destination = edge.getDestination();
-
-            // Retrieving the colors of the source and destination nodes
-            Color sourceColor = nodeColors.get(source);
-            Color destColor = nodeColors.get(destination);
-
-            // Setting edge color based on if both nodes are in the same path type
-            if (Color.GREEN.equals(sourceColor) && Color.GREEN.equals(destColor)) {
-                graphics.setColor(Color.GREEN); // Both ends are in the final path
-            } else if (Color.BLUE.equals(sourceColor) && Color.BLUE.equals(destColor)) {
-                graphics.setColor(Color.BLUE);  // Both ends are in an intermediary path
-            } else {
-                graphics.setColor(Color.BLACK); // Default edge color
+        // Edges are only colored if both of their ends belong to the path, so only the neighbours of the path nodes are checked
+        graphics.setColor(color);
+        for (Node node : nodes) {
+            graph.forEachNeighbourOf(node, neighbour -> {
+                // Skipping the edges of the final path while drawing the intermediary path, they are drawn on top anyway
+                if (neighbour.id > node.id && nodes.contains(neighbour) && edgeInView(view, node, neighbour)
+                        && !(color == Color.BLUE && highlightedNodes.contains(node) && highlightedNodes.contains(neighbour))) {
+                    graphics.drawLine(node.x, node.y, neighbour.x, neighbour.y);
+                }
+            });
+        }
+        for (Node node : nodes) {
+            if ((color == Color.BLUE && highlightedNodes.contains(node)) || !graph.containsNode(node)) {
+                continue;
+            }
+            if (view.intersects(node.x - NODE_RADIUS, node.y - NODE_RADIUS, 2 * NODE_RADIUS + 1, 2 * NODE_RADIUS + 1)) {
+                drawNode(graphics, node, color);
             }
+        }
+    }
 
-            // Drawing the edge as a line between source and destination
-            graphics.drawLine(source.x, source.y, destination.x, destination.y);
+    private void drawNode(Graphics graphics, Node node, Color color) {
+        graphics.setColor(color);
+
+        // Drawing only a square when zoomed out so far that the circle, border and identifier would not be recognizable
+        if (scale < DETAIL_SCALE) {
+            int size = (int) Math.max(2 * NODE_RADIUS, 3 / scale); // At least three pixels on the screen
+            graphics.fillRect(node.x - size / 2, node.y - size / 2, size, size);
+            return;
         }
 
-        // Drawing the nodes after drawing edges so nodes appear on top
-        for (Node node : graph.getAllNodes()) {
-            Color nodeColor = nodeColors.get(node);
-            graphics.setColor(nodeColor);
+        // Filling an oval to represent the node
+        graphics.fillOval(node.x - NODE_RADIUS, node.y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
 
-            // Filling an oval to represent the node
-            graphics.fillOval(node.x - 15, node.y - 15, 30, 30);
+        // Drawing the border of the node circle in black
+        graphics.setColor(Color.BLACK);
+        graphics.drawOval(node.x - NODE_RADIUS, node.y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
+        if (scale < LABEL_SCALE) {
+            return;
+        }
 
-            // Drawing the border of the node circle in black
-            graphics.setColor(Color.BLACK);
-            graphics.drawOval(node.x - 15, node.y - 15, 30, 30);
+        // Drawing the node identifier text centered inside the circle
+        FontMetrics metrics = graphics.getFontMetrics(graphics.getFont());
+        int stringWidth = metrics.stringWidth(node.identifier);
+        int stringHeight = metrics.getHeight();
+        int textX = node.x - stringWidth / 2;
+        int textY = node.y + stringHeight / 4;
 
-            // Drawing the node identifier text centered inside the circle
-            FontMetrics metrics = graphics.getFontMetrics(graphics.getFont());
-            int stringWidth = metrics.stringWidth(node.identifier);
-            int stringHeight = metrics.getHeight();
-            int textX = node.x - stringWidth / 2;
-            int textY = node.y + stringHeight / 4;
+        graphics.drawString(node.identifier, textX, textY);
+    }
 
-            graphics.drawString(node.identifier, textX, textY);
+    // Method for getting the area covered by a group of nodes, added to the given area if it is not null
+    private Rectangle boundsOf(Collection<Node> nodes, Rectangle area) {
+        for (Node node : nodes) {
+            // Leaving room for the border and for identifiers wider than the circle
+            Rectangle nodeArea = new Rectangle(node.x - 2 * NODE_RADIUS, node.y - NODE_RADIUS - 2, 4 * NODE_RADIUS, 2 * NODE_RADIUS + 4);
+            area = area == null ? nodeArea : area.union(nodeArea);
         }
+        return area;
     }
 
+    // Method for repainting the part of the panel showing the given area of the graph
+    private void repaintRegion(Rectangle area) {
+        if (area != null) {
+            repaint((int) Math.floor((area.x - originX) * scale) - 2, (int) Math.floor((area.y - originY) * scale) - 2,
+                    (int) Math.ceil(area.width * scale) + 5, (int) Math.ceil(area.height * scale) + 5);
+        }
+    }
 
     @Override
     public Dimension getPreferredSize() {
         return new Dimension(getWidth(), getHeight());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A binary snapshot of a graph that is loaded by memory mapping the file instead of parsing text
+// Layout, all numbers big endian:
+//   magic "AODVSNAP", int version, int node count, int neighbour count, int identifier byte count
+//   int[node count + 1] identifier offsets, int[node count] x, int[node count] y,
+//   int[node count + 1] neighbour offsets, int[neighbour count] neighbours, identifier bytes in UTF-8
+// The neighbours of node i are the node indexes neighbours[offsets[i]] up to neighbours[offsets[i + 1] - 1],
+// every edge is listed at both of its ends
+public class GraphSnapshot {
+
+    static final byte[] MAGIC = "AODVSNAP".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 4 * Integer.BYTES;
+
+    // Method for writing the nodes, edges and node positions of a graph into a snapshot file
+    public static void write(Graph graph, Path file) throws IOException {
+        Node[] nodes = graph.getAllNodes().toArray(new Node[0]);
+        int count = nodes.length;
+        int[] indexOfId = new int[graph.getIdCount()];
+        byte[][] identifiers = new byte[count][];
+        int[] identifierOffsets = new int[count + 1];
+        int[] neighbourOffsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            indexOfId[nodes[i].id] = i;
+            identifiers[i] = nodes[i].identifier.getBytes(StandardCharsets.UTF_8);
+            identifierOffsets[i + 1] = identifierOffsets[i] + identifiers[i].length;
+            neighbourOffsets[i + 1] = neighbourOffsets[i] + graph.degreeOf(nodes[i]);
+        }
+        int[] neighbours = new int[neighbourOffsets[count]];
+        for (int i = 0; i < count; i++) {
+            int[] next = {neighbourOffsets[i]};
+            graph.forEachNeighbourOf(nodes[i], neighbour -> neighbours[next[0]++] = indexOfId[neighbour.id]);
+        }
+
+        long size = HEADER_SIZE + 4L * Integer.BYTES * count + 2L * Integer.BYTES + (long) Integer.BYTES * neighbours.length + identifierOffsets[count];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.put(MAGIC).putInt(VERSION).putInt(count).putInt(neighbours.length).putInt(identifierOffsets[count]);
+            IntBuffer ints = buffer.asIntBuffer();
+            ints.put(identifierOffsets);
+            for (Node node : nodes) {
+                ints.put(node.x);
+            }
+            for (Node node : nodes) {
+                ints.put(node.y);
+            }
+            ints.put(neighbourOffsets).put(neighbours);
+            buffer.position(buffer.position() + Integer.BYTES * ints.position());
+            for (byte[] identifier : identifiers) {
+                buffer.put(identifier);
+            }
+            buffer.force();
+        }
+    }
+
+    // Method for checking if the first bytes of a file are those of a snapshot
+    static boolean isSnapshot(byte[] header, int length) {
+        return length >= MAGIC.length && Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    // Method for adding the nodes and edges of a snapshot file to a graph, the nodes keep the positions they were saved with
+    public static LoadReport read(Graph graph, Path file) throws IOException {
+        LoadReport report = new LoadReport();
+        report.snapshot = true;
+        long start = System.nanoTime();
+        int edgesBefore = graph.getEdges().size();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!isSnapshot(magic, magic.length)) {
+                throw new IOException(file + " is not a graph snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            int count = buffer.getInt();
+            int neighbourCount = buffer.getInt();
+            int identifierBytes = buffer.getInt();
+            long size = HEADER_SIZE + 4L * Integer.BYTES * count + 2L * Integer.BYTES + (long) Integer.BYTES * neighbourCount + identifierBytes;
+            if (count < 0 || neighbourCount < 0 || identifierBytes < 0 || size != channel.size()) {
+                throw new IOException("Snapshot " + file + " is truncated or corrupt");
+            }
+            report.bytes = size;
+
+            // Viewing the arrays of the file in place, they are only read through the mapping
+            IntBuffer ints = buffer.asIntBuffer();
+            int identifierOffsets = 0;
+            int xs = identifierOffsets + count + 1;
+            int ys = xs + count;
+            int neighbourOffsets = ys + count;
+            int neighbours = neighbourOffsets + count + 1;
+            int identifierStart = buffer.position() + Integer.BYTES * (neighbours + neighbourCount);
+
+            graph.reserve(count, neighbourCount / 2);
+            Node[] nodes = new Node[count];
+            byte[] identifier = new byte[64];
+            for (int i = 0; i < count; i++) {
+                int from = ints.get(identifierOffsets + i), to = ints.get(identifierOffsets + i + 1);
+                if (from < 0 || to < from || to > identifierBytes) {
+                    throw new IOException("Snapshot " + file + " has a corrupt node table");
+                }
+                if (to - from > identifier.length) {
+                    identifier = new byte[to - from];
+                }
+                buffer.get(identifierStart + from, identifier, 0, to - from);
+                String name = new String(identifier, 0, to - from, StandardCharsets.UTF_8);
+                Node node = graph.getNode(name); // The node may already be in the graph from an earlier load
+                if (node == null) {
+                    node = new Node(name);
+                    graph.addNode(node, ints.get(neighbourOffsets + i + 1) - ints.get(neighbourOffsets + i));
+                    report.nodesAdded++;
+                }
+                node.x = ints.get(xs + i);
+                node.y = ints.get(ys + i);
+                nodes[i] = node;
+            }
+
+            // Every edge is listed at both ends, so it is only added from the end with the lower index
+            for (int i = 0; i < count; i++) {
+                int from = ints.get(neighbourOffsets + i), to = ints.get(neighbourOffsets + i + 1);
+                if (from < 0 || to < from || to > neighbourCount) {
+                    throw new IOException("Snapshot " + file + " has corrupt neighbour offsets");
+                }
+                for (int n = from; n < to; n++) {
+                    int neighbour = ints.get(neighbours + n);
+                    if (neighbour < 0 || neighbour >= count) {
+                        throw new IOException("Snapshot " + file + " has a corrupt neighbour list");
+                    }
+                    if (neighbour >= i) {
+                        graph.addEdge(nodes[i], nodes[neighbour]);
+                    }
+                }
+            }
+        }
+
+        report.edgesAdded = graph.getEdges().size() - edgesBefore;
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// Runs the simulator without a window: loads a topology file, executes a workload file and writes the results as csv
+// The topology can also be saved as a binary snapshot with --write-snapshot, which loads much faster than the edge list
+// Instead of a file the topology can be generated with gen:<specification>, see TopologyGenerator.fromSpecification()
+// The protocol metrics are shown in JMX, and with --metrics they are also written every --metrics-period milliseconds,
+// as csv rows to a file or as readable lines to the console when the file is -
+// With --local-repair a node that detects a broken link first searches the destination around itself before sending route errors
+// With --route-timeout routes expire when they were not used for that many milliseconds of wall clock time, by default they
+// are kept until they break
+// Rreqs are sent in expanding rings, --ring-search <start>:<increment>:<threshold> changes their time to live and
+// --no-ring-search floods the whole network with every rreq, --flood-comparison also counts in the metrics what flooding
+// the whole component of the source would have cost for every ring search
+// With --rreq-rate-limit a node may originate that many rreqs per second of wall clock time, a query over the limit fails
+// Every workload line is one command, blank lines and lines starting with # are skipped:
+//   find <source> <destination>         finds a route with aodv
+//   send <source> <destination>         sends data along the existing route, handling route errors
+//   add-node <node>                     adds a node
+//   remove-node <node>                  removes a node and its edges
+//   add-edge <source> <destination>     adds an edge
+//   remove-edge <source> <destination>  removes an edge
+public class HeadlessRunner {
+
+    private static final String HEADER = "line,command,source,destination,status,hops,path,control_messages,elapsed_ns";
+
+    private Graph graph;
+    private AODV aodv;
+    private PrintWriter results;
+    private int commands; // The number of commands executed
+    private int failures; // The number of commands that failed or could not be parsed
+
+    public HeadlessRunner(Graph graph, AODV aodv, PrintWriter results) {
+        this.graph = graph;
+        this.aodv = aodv;
+        this.results = results;
+    }
+
+    // Usage: --headless <topology file> [workload file] [results file] [--verbose] [--write-snapshot <snapshot file>]
+    //        [--metrics <metrics file or ->] [--metrics-period <milliseconds>] [--local-repair] [--route-timeout <milliseconds>]
+    //        [--ring-search <start>:<increment>:<threshold>] [--no-ring-search] [--flood-comparison] [--rreq-rate-limit <per second>]
+    public static void main(String[] args) throws IOException {
+        String topologyFile = null;
+        String workloadFile = null;
+        String resultsFile = null;
+        String snapshotFile = null;
+        String metricsFile = null;
+        long metricsPeriod = MetricsReporter.DEFAULT_PERIOD_MS;
+        boolean verbose = false;
+        boolean localRepair = false;
+        long routeTimeout = 0;
+        boolean ringSearch = true;
+        boolean floodComparison = false;
+        int rateLimit = 0;
+        String ringTtls = null;
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if(arg.equals("--headless")) {
+                continue;
+            }
+            if(arg.equals("--verbose")) {
+                verbose = true;
+            }
+            else if(arg.equals("--local-repair")) {
+                localRepair = true;
+            }
+            else if(arg.equals("--route-timeout") && i + 1 < args.length) {
+                routeTimeout = Long.parseLong(args[++i]);
+            }
+            else if(arg.equals("--ring-search") && i + 1 < args.length) {
+                ringTtls = args[++i];
+            }
+            else if(arg.equals("--no-ring-search")) {
+                ringSearch = false;
+            }
+            else if(arg.equals("--flood-comparison")) {
+                floodComparison = true;
+            }
+            else if(arg.equals("--rreq-rate-limit") && i + 1 < args.length) {
+                rateLimit = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("--write-snapshot") && i + 1 < args.length) {
+                snapshotFile = args[++i];
+            }
+            else if(arg.equals("--metrics") && i + 1 < args.length) {
+                metricsFile = args[++i];
+            }
+            else if(arg.equals("--metrics-period") && i + 1 < args.length) {
+                metricsPeriod = Long.parseLong(args[++i]);
+            }
+            else if(topologyFile == null) {
+                topologyFile = arg;
+            }
+            else if(workloadFile == null) {
+                workloadFile = arg;
+            }
+            else {
+                resultsFile = arg;
+            }
+        }
+        if(topologyFile == null || (workloadFile == null && snapshotFile == null)) {
+            System.err.println("Usage: java Main --headless <topology file> [workload file] [results file] [--verbose] [--write-snapshot <snapshot file>]"
+                    + " [--metrics <metrics file or ->] [--metrics-period <milliseconds>] [--local-repair]"
+                    + " [--route-timeout <milliseconds>] [--ring-search <start>:<increment>:<threshold>] [--no-ring-search]"
+                    + " [--flood-comparison] [--rreq-rate-limit <per second>]");
+            System.exit(2);
+        }
+
+        Graph graph;
+        if(topologyFile.startsWith("gen:")) {
+            long generateStart = System.nanoTime();
+            graph = TopologyGenerator.fromSpecification(topologyFile.substring("gen:".length()));
+            System.err.println("Generated " + topologyFile + ": " + graph.getAllNodes().size() + " nodes and " + graph.getEdges().size()
+                    + " edges in " + (System.nanoTime() - generateStart) / 1_000_000 + " ms");
+        }
+        else {
+            graph = new Graph();
+            LoadReport report = graph.generateGraph(topologyFile);
+            System.err.println("Loaded " + topologyFile + ": " + report);
+        }
+        if(snapshotFile != null) {
+            long snapshotStart = System.nanoTime();
+            GraphSnapshot.write(graph, Path.of(snapshotFile));
+            System.err.println("Wrote snapshot " + snapshotFile + " in " + (System.nanoTime() - snapshotStart) / 1_000_000 + " ms");
+        }
+        if(workloadFile == null) {
+            return; // Only converting the topology into a snapshot
+        }
+
+        AODV aodv = new AODV(graph, null);
+        aodv.getLog().setLevel(verbose ? LogLevel.DEBUG : LogLevel.OFF); // The routing decisions are only printed when asked for
+        aodv.setLocalRepair(localRepair);
+        aodv.setActiveRouteTimeout(routeTimeout * 1000);
+        aodv.setExpandingRingSearch(ringSearch);
+        aodv.setFloodComparison(floodComparison);
+        aodv.setRequestRateLimit(rateLimit);
+        if(ringTtls != null) {
+            String[] ttls = ringTtls.split(":");
+            if(ttls.length != 3) {
+                System.err.println("The ring search needs three time to live values as <start>:<increment>:<threshold>: " + ringTtls);
+                System.exit(2);
+            }
+            aodv.setRingSearchTtls(Integer.parseInt(ttls[0]), Integer.parseInt(ttls[1]), Integer.parseInt(ttls[2]));
+        }
+        aodv.getMetrics().registerMBean("headless");
+        boolean metricsToConsole = "-".equals(metricsFile);
+        PrintWriter metricsOutput = null;
+        MetricsReporter metricsReporter = null;
+        if(metricsFile != null) {
+            metricsOutput = metricsToConsole ? new PrintWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8))
+                    : new PrintWriter(new BufferedWriter(new FileWriter(metricsFile, StandardCharsets.UTF_8)));
+            metricsReporter = new MetricsReporter(aodv.getMetrics(), metricsOutput, !metricsToConsole);
+            metricsReporter.start(metricsPeriod);
+        }
+
+        Writer writer = resultsFile == null ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8) : new FileWriter(resultsFile, StandardCharsets.UTF_8);
+        try(PrintWriter results = new PrintWriter(new BufferedWriter(writer))) {
+            HeadlessRunner runner = new HeadlessRunner(graph, aodv, results);
+            long runStart = System.nanoTime();
+            try(BufferedReader workload = new BufferedReader(new FileReader(workloadFile, StandardCharsets.UTF_8))) {
+                runner.run(workload);
+            }
+            long runTime = System.nanoTime() - runStart;
+            System.err.println("Executed " + runner.commands + " commands with " + runner.failures + " failures in " + runTime / 1_000_000 + " ms");
+        }
+        finally {
+            aodv.close(); // Printing the last routing decisions before the program exits
+            if(metricsReporter != null) {
+                metricsReporter.stop(); // Writing the totals of the whole run as the last report
+                if(!metricsToConsole) {
+                    metricsOutput.close();
+                }
+            }
+        }
+    }
+
+    // Method for executing every command of a workload and writing one result line for each of them
+    public void run(BufferedReader workload) throws IOException {
+        results.println(HEADER);
+        String line;
+        int lineNumber = 0;
+        while((line = workload.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            execute(lineNumber, line.split("\\s+"));
+            aodv.getLog().flush(); // Keeping the verbose routing decisions next to the command that caused them
+        }
+        results.flush();
+    }
+
+    private void execute(int lineNumber, String[] command) {
+        commands++;
+        String operation = command[0].toLowerCase();
+        int expectedArguments = argumentsOf(operation);
+        if(expectedArguments == -1) {
+            reject(lineNumber, operation, command, "UNKNOWN_COMMAND");
+            return;
+        }
+        if(command.length != expectedArguments) {
+            reject(lineNumber, operation, command, "MALFORMED");
+            return;
+        }
+        Node source = graph.getNode(command[1]);
+        Node destination = expectedArguments == 3 ? graph.getNode(command[2]) : null;
+
+        long start = System.nanoTime();
+        switch(operation) {
+            case "find": {
+                if(source == null || destination == null) {
+                    reject(lineNumber, operation, command, "MISSING_NODE");
+                    return;
+                }
+                RouteQueryResult queryResult = new RouteQueryResult(new RouteQuery(source, destination));
+                queryResult.record(aodv.findRoute(source, destination, queryResult));
+                queryResult.elapsedNanos = System.nanoTime() - start;
+                writeQuery(lineNumber, operation, command, queryResult);
+                return;
+            }
+            case "send": {
+                if(source == null || destination == null) {
+                    reject(lineNumber, operation, command, "MISSING_NODE");
+                    return;
+                }
+                RouteResult route = aodv.sendData(source, destination, true);
+                long elapsed = System.nanoTime() - start;
+                writeRoute(lineNumber, operation, command, route, 0, elapsed);
+                return;
+            }
+            case "add-node": {
+                boolean added = graph.addNode(new Node(command[1]));
+                writeTopologyChange(lineNumber, operation, command, added, System.nanoTime() - start);
+                return;
+            }
+            case "remove-node": {
+                boolean removed = source != null && graph.removeNode(source);
+                writeTopologyChange(lineNumber, operation, command, removed, System.nanoTime() - start);
+                return;
+            }
+            case "add-edge": {
+                boolean added = source != null && destination != null && graph.addEdge(source, destination);
+                writeTopologyChange(lineNumber, operation, command, added, System.nanoTime() - start);
+                return;
+            }
+            case "remove-edge": {
+                boolean removed = source != null && destination != null && graph.removeEdge(source, destination);
+                writeTopologyChange(lineNumber, operation, command, removed, System.nanoTime() - start);
+                return;
+            }
+        }
+    }
+
+    // Method for getting the number of words a command is made of including the command itself, -1 for unknown commands
+    private static int argumentsOf(String operation) {
+        switch(operation) {
+            case "add-node":
+            case "remove-node":
+                return 2;
+            case "find":
+            case "send":
+            case "add-edge":
+            case "remove-edge":
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    private void writeRoute(int lineNumber, String operation, String[] command, RouteResult route, int controlMessages, long elapsed) {
+        write(lineNumber, operation, command, route.getStatus().name(), route.getHopCount(), route.isFound() ? route.pathString() : "", controlMessages, elapsed);
+        if(!route.isFound()) {
+            failures++;
+        }
+    }
+
+    private void writeQuery(int lineNumber, String operation, String[] command, RouteQueryResult queryResult) {
+        write(lineNumber, operation, command, queryResult.getStatus().name(), queryResult.getHopCount(), queryResult.pathString(),
+                queryResult.getControlMessages(), queryResult.getElapsedNanos());
+        if(!queryResult.isFound()) {
+            failures++;
+        }
+    }
+
+    private void writeTopologyChange(int lineNumber, String operation, String[] command, boolean changed, long elapsed) {
+        if(!changed) {
+            failures++;
+        }
+        write(lineNumber, operation, command, changed ? "OK" : "FAILED", -1, "", 0, elapsed);
+    }
+
+    // Method for writing the result of a command that could not be run
+    private void reject(int lineNumber, String operation, String[] command, String status) {
+        failures++;
+        write(lineNumber, operation, command, status, -1, "", 0, 0);
+    }
+
+    private void write(int lineNumber, String operation, String[] command, String status, int hops, String path, int controlMessages, long elapsed) {
+        String source = command.length > 1 ? command[1] : "";
+        String destination = command.length > 2 ? command[2] : "";
+        results.println(lineNumber + "," + operation + "," + csv(source) + "," + csv(destination) + "," + status + "," + hops + "," + csv(path) + "," + controlMessages + "," + elapsed);
+    }
+
+    // Method for quoting a csv field if it contains characters that would break the row
+    private static String csv(String field) {
+        if(field.indexOf(',') == -1 && field.indexOf('"') == -1) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A histogram of non-negative values that many threads can record into without locking
+// Values below 16 get a bucket each, larger values share a bucket with the values of the same power of two and the same
+// next four bits, so every value is counted in a bucket at most 1/16 wider than the value and percentiles are within ~6%
+// Recording is one increment of a bucket plus a striped count and sum, so it is cheap enough for every discovery
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if(value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while(value > currentMax && !max.compareAndSet(currentMax, value)) { // Only contending when a new maximum is seen
+            currentMax = max.get();
+        }
+    }
+
+    private static int bucketOf(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // At least SUB_BUCKET_BITS here
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // The largest value that falls into a bucket
+    private static long highestValueOf(int bucket) {
+        if(bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long values = count.sum();
+        return values == 0 ? 0 : (double) sum.sum() / values;
+    }
+
+    // Method for getting the value that the given fraction of the recorded values are at most, e.g. 0.99 for the 99th percentile
+    public long getPercentile(double fraction) {
+        long values = count.sum();
+        if(values == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * values));
+        long seen = 0;
+        for(int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if(seen >= rank) {
+                return Math.min(highestValueOf(bucket), max.get());
+            }
+        }
+        return max.get(); // Values recorded while counting can make the buckets lag behind the count
+    }
+
+    // Method for reading the summary of the histogram at once, scaled by the divisor e.g. 1000 to turn nanoseconds into microseconds
+    public Snapshot snapshot(double divisor) {
+        return new Snapshot(getCount(), getMean() / divisor, getPercentile(0.5) / divisor, getPercentile(0.9) / divisor,
+                getPercentile(0.99) / divisor, getMax() / divisor);
+    }
+
+    // The summary of a histogram, JMX shows it as a composite with one item per getter
+    public static class Snapshot {
+
+        private final long count;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max;
+
+        public Snapshot(long count, double mean, double p50, double p90, double p99, double max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, max %.1f", mean, p50, p90, p99, max);
+        }
+    }
+}
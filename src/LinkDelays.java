@@ -0,0 +1,41 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// The delays a message experiences when it is sent over a link in the simulation, in simulated microseconds
+// Every link uses the default propagation delay unless it has its own, and every node adds the same processing delay
+public class LinkDelays {
+
+    private long propagationDelay;
+    private long processingDelay;
+    private Map<Long, Long> linkPropagationDelays; // A map from a pair of node ids to the propagation delay of that link
+
+    public LinkDelays(long propagationDelay, long processingDelay) {
+        this.propagationDelay = propagationDelay;
+        this.processingDelay = processingDelay;
+        this.linkPropagationDelays = new HashMap<>();
+    }
+
+    // Method for giving a link its own propagation delay, links are undirected so both directions are set
+    public void setPropagationDelay(Node source, Node destination, long delay) {
+        linkPropagationDelays.put(key(source, destination), delay);
+        linkPropagationDelays.put(key(destination, source), delay);
+    }
+
+    // Method for getting the total delay from the moment source sends a message until destination has processed it
+    public long delayOf(Node source, Node destination) {
+        Long linkDelay = linkPropagationDelays.isEmpty() ? null : linkPropagationDelays.get(key(source, destination));
+        return (linkDelay == null ? propagationDelay : linkDelay) + processingDelay;
+    }
+
+    public long getPropagationDelay() {
+        return propagationDelay;
+    }
+
+    public long getProcessingDelay() {
+        return processingDelay;
+    }
+
+    private static long key(Node source, Node destination) {
+        return ((long) source.id << 32) | (destination.id & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,43 @@
+// The outcome of loading a topology file or snapshot, how much was read, what was added to the graph and how fast
+public class LoadReport {
+
+    long bytes; // The number of bytes parsed, after decompression for gzip input
+    long lines;
+    long edgeLines; // The lines that described an edge
+    long commentLines; // The lines that were empty or only held a comment
+    long malformedLines; // The lines that were skipped because they could not be parsed
+    long firstMalformedLine = -1; // The number of the first skipped line, -1 if every line was parsed
+    long ignoredAttributes; // The attributes with a key the loader does not know
+    int nodesAdded;
+    int edgesAdded;
+    boolean gzip;
+    boolean snapshot; // Whether the file was a binary snapshot instead of an edge list
+    long elapsedNanos;
+
+    public double getLinesPerSecond() {
+        return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20);
+    }
+
+    public long getMalformedLines() {
+        return malformedLines;
+    }
+
+    @Override
+    public String toString() {
+        if (snapshot) {
+            return String.format("snapshot -> %d nodes and %d edges added in %d ms, %.1f MB/s",
+                    nodesAdded, edgesAdded, elapsedNanos / 1_000_000, getMegabytesPerSecond());
+        }
+        String report = String.format("%d lines (%d edges, %d comments, %d malformed) -> %d nodes and %d edges added in %d ms, %.0f lines/s, %.1f MB/s%s",
+                lines, edgeLines, commentLines, malformedLines, nodesAdded, edgesAdded, elapsedNanos / 1_000_000,
+                getLinesPerSecond(), getMegabytesPerSecond(), gzip ? " (gzip)" : "");
+        if (firstMalformedLine != -1) {
+            report += ", first malformed line " + firstMalformedLine;
+        }
+        return report;
+    }
+}
@@ -0,0 +1,39 @@
+import javax.swing.text.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// A styled document for the log area that collects styled text and inserts it in a single document update
+// Inserting a batch of lines this way fires one change event instead of one per word
+public class LogDocument extends DefaultStyledDocument {
+
+    private static final long serialVersionUID = 1L;
+    private static final char[] LINE_FEED = {'\n'};
+
+    private List<ElementSpec> batch = new ArrayList<>();
+
+    // Method for adding a run of text with the given style to the pending batch
+    public void appendBatchString(String text, AttributeSet style) {
+        if (!text.isEmpty()) {
+            char[] characters = text.toCharArray();
+            batch.add(new ElementSpec(style, ElementSpec.ContentType, characters, 0, characters.length));
+        }
+    }
+
+    // Method for ending the current line of the pending batch and starting a new paragraph
+    public void appendBatchLineFeed(AttributeSet style) {
+        batch.add(new ElementSpec(style, ElementSpec.ContentType, LINE_FEED, 0, 1));
+        AttributeSet paragraphStyle = getParagraphElement(0).getAttributes();
+        batch.add(new ElementSpec(null, ElementSpec.EndTagType));
+        batch.add(new ElementSpec(paragraphStyle, ElementSpec.StartTagType));
+    }
+
+    // Method for inserting the pending batch at the end of the document in one update
+    public void processBatchUpdates() throws BadLocationException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ElementSpec[] inserts = batch.toArray(new ElementSpec[0]);
+        batch.clear();
+        insert(getLength(), inserts);
+    }
+}
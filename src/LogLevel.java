@@ -0,0 +1,7 @@
+// The levels of the routing log, a message is recorded if its level is at least the level of the log
+public enum LogLevel {
+    DEBUG, // Every single routing decision
+    INFO, // The start and result of discoveries and data transfers
+    WARN, // Route errors and missing routes
+    OFF // Nothing is recorded
+}
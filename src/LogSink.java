@@ -0,0 +1,7 @@
+import java.util.List;
+
+// The destination the routing log hands its formatted messages to, one batch at a time
+public interface LogSink {
+
+    void write(List<String> lines);
+}
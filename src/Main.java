@@ -1,6 +1,11 @@
 import javax.swing.*;
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // Running without a window when asked for, e.g. java Main --headless topology.txt workload.txt results.csv
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessRunner.main(args);
+            return;
+        }
         SwingUtilities.invokeLater(() -> new GUI());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+import java.io.PrintWriter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Writes the protocol metrics periodically, either as csv rows for later analysis or as readable lines for the console
+// Every row holds the totals since the start, so the rate of anything is the difference between two rows
+public class MetricsReporter {
+
+    public static final long DEFAULT_PERIOD_MS = 1000;
+
+    private static final String HEADER = "elapsed_ms,discoveries,failed_discoveries,cached_routes,route_requests,route_replies,route_errors,local_repairs,expired_routes,"
+            + "rate_limited_requests,"
+            + "ring_searches,ring_retries,ring_control_messages,flood_control_messages,saved_control_messages,"
+            + "discovery_us_mean,discovery_us_p50,discovery_us_p90,discovery_us_p99,discovery_us_max,"
+            + "path_length_mean,path_length_p50,path_length_p99,path_length_max,"
+            + "control_messages_mean,control_messages_p50,control_messages_p99,control_messages_max,"
+            + "forward_routes,reverse_routes,largest_routing_table";
+
+    // One daemon thread writes every report, like the drainer of the routing logs
+    private static final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ProtocolMetrics metrics;
+    private PrintWriter output;
+    private boolean csv;
+    private long startTime;
+    private ScheduledFuture<?> reportTask;
+
+    public MetricsReporter(ProtocolMetrics metrics, PrintWriter output, boolean csv) {
+        this.metrics = metrics;
+        this.output = output;
+        this.csv = csv;
+    }
+
+    // Method for writing a report every period until stop() is called
+    public synchronized void start(long periodMs) {
+        if(reportTask == null) {
+            startTime = System.nanoTime();
+            if(csv) {
+                output.println(HEADER);
+            }
+            reportTask = reporter.scheduleAtFixedRate(this::report, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Method for stopping the periodic reports and writing the final one
+    public synchronized void stop() {
+        if(reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+            report();
+        }
+    }
+
+    public synchronized void report() {
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+        LatencyHistogram.Snapshot discoveryTime = metrics.getDiscoveryTimeMicros();
+        LatencyHistogram.Snapshot pathLength = metrics.getPathLength();
+        LatencyHistogram.Snapshot controlMessages = metrics.getControlMessagesPerDiscovery();
+        metrics.sampleRoutingTablesNow();
+        if(csv) {
+            output.printf("%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.2f,%.0f,%.0f,%.0f,%.1f,%.0f,%.0f,%.0f,%d,%d,%d%n",
+                    elapsedMs, metrics.getDiscoveries(), metrics.getFailedDiscoveries(), metrics.getCachedRoutes(),
+                    metrics.getRouteRequests(), metrics.getRouteReplies(), metrics.getRouteErrors(), metrics.getLocalRepairs(), metrics.getExpiredRoutes(),
+                    metrics.getRateLimitedRequests(), metrics.getRingSearches(), metrics.getRingRetries(), metrics.getRingControlMessages(),
+                    metrics.getFloodControlMessages(), metrics.getSavedControlMessages(),
+                    discoveryTime.getMean(), discoveryTime.getP50(), discoveryTime.getP90(), discoveryTime.getP99(), discoveryTime.getMax(),
+                    pathLength.getMean(), pathLength.getP50(), pathLength.getP99(), pathLength.getMax(),
+                    controlMessages.getMean(), controlMessages.getP50(), controlMessages.getP99(), controlMessages.getMax(),
+                    metrics.getForwardRoutes(), metrics.getReverseRoutes(), metrics.getLargestRoutingTable());
+        }
+        else {
+            output.printf("[%d ms] %d discoveries (%d failed, %d answered from cache), %d RREQ, %d RREP, %d RERR, %d local repairs%n",
+                    elapsedMs, metrics.getDiscoveries(), metrics.getFailedDiscoveries(), metrics.getCachedRoutes(),
+                    metrics.getRouteRequests(), metrics.getRouteReplies(), metrics.getRouteErrors(), metrics.getLocalRepairs());
+            output.printf("  rate limit: %d RREQ refused%n", metrics.getRateLimitedRequests());
+            output.printf("  expanding ring: %d searches, %d retries, %d RREQ%n",
+                    metrics.getRingSearches(), metrics.getRingRetries(), metrics.getRingControlMessages());
+            if(metrics.getFloodControlMessages() > 0) { // Only counted with the flood comparison turned on
+                output.printf("  flood comparison: %d RREQ for full floods, %d saved%n",
+                        metrics.getFloodControlMessages(), metrics.getSavedControlMessages());
+            }
+            output.println("  discovery time (us): " + discoveryTime);
+            output.println("  path length (hops):  " + pathLength);
+            output.println("  control messages:    " + controlMessages);
+            output.printf("  routing tables: %d forward routes, %d reverse routes, largest table %d, %d routes expired%n",
+                    metrics.getForwardRoutes(), metrics.getReverseRoutes(), metrics.getLargestRoutingTable(), metrics.getExpiredRoutes());
+        }
+        output.flush();
+    }
+}
@@ -1,29 +1,25 @@
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Objects;
 import java.util.Random;
 
 public class Node {
 
     String identifier;
+    int id = -1; // Dense integer id of the identifier in the graph the node was added to, used by the routing tables
     int sequenceNum;
-    int hopCount;
     int x;
     int y;
-    ArrayList<RoutingTable> reversePath;
-    ArrayList<RoutingTable> forwardPath;
-    ArrayList<RouteRequest> processedRequests;
+    RouteTable reversePath;
+    RouteTable forwardPath;
+    RequestCache seenRequests; // The rreqs the node received lately, so it handles every rreq only once
 
     public Node(String identifier) {
         Random random = new Random();
         this.identifier = identifier;
         this.sequenceNum = 0;
-        this.hopCount = 0;
         this.x = random.nextInt(800) + 80;
         this.y = random.nextInt(400) + 50;
-        this.reversePath = new ArrayList<>();
-        this.forwardPath = new ArrayList<>();
-        this.processedRequests = new ArrayList<>();
+        this.reversePath = new RouteTable();
+        this.forwardPath = new RouteTable();
+        this.seenRequests = new RequestCache();
     }
 
     @Override
@@ -37,7 +33,7 @@ public class Node {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.identifier);
+        return 31 + identifier.hashCode(); // The value of Objects.hash(identifier) without allocating its varargs array
     }
 
     @Override
@@ -45,54 +41,24 @@ public class Node {
         return identifier;
     }
 
-    public RoutingTable getReversePathTo(Node source) {
-        RoutingTable reversePath = null;
-
-        for(RoutingTable path: this.reversePath) {
-            if(path.destination.equals(source)) {
-                reversePath = path;
-                break;
-            }
-        }
+    // Method for incrementing the sequence number, synchronized so concurrent discoveries do not lose increments
+    public synchronized int incrementSequenceNum() {
+        return ++sequenceNum;
+    }
 
-        return reversePath;
+    public RoutingTable getReversePathTo(Node source) {
+        return reversePath.get(source);
     }
 
     public RoutingTable getForwardPathTo(Node destination) {
-        RoutingTable forwardPath = null;
-        for(RoutingTable path: this.forwardPath) {
-            if(path.destination.equals(destination)) {
-                forwardPath = path;
-                break;
-            }
-        }
-        return forwardPath;
+        return forwardPath.get(destination);
     }
 
     public boolean removeForwardPathTo(Node destination) {
-
-        Iterator<RoutingTable> iterator = forwardPath.iterator();
-        while(iterator.hasNext()) {
-            RoutingTable path = iterator.next();
-            if(path.destination.equals(destination)) {
-                iterator.remove();
-                return true;
-            }
-        }
-
-        return false;
+        return forwardPath.remove(destination);
     }
 
     public boolean removeReversePathTo(Node source) {
-
-        Iterator<RoutingTable> iterator = reversePath.iterator();
-        while(iterator.hasNext()) {
-            RoutingTable path = iterator.next();
-            if(path.destination.equals(source)) {
-                iterator.remove();
-                return true;
-            }
-        }
-        return false;
+        return reversePath.remove(source);
     }
 }
@@ -0,0 +1,220 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Counters, histograms and gauges of what the aodv protocol does, shared by every thread that runs discoveries
+// The counters are striped LongAdders so that parallel discoveries do not contend on them, the gauges are only computed
+// when they are read, by walking the routing tables of the nodes the graph holds by id
+public class ProtocolMetrics implements ProtocolMetricsMXBean {
+
+    private static final long SAMPLE_INTERVAL_NANOS = 100_000_000; // Reading all the gauges at once walks the tables once
+
+    private Graph graph;
+    private ObjectName registeredName; // The name in the platform MBean server, null while not registered
+
+    final LongAdder discoveries = new LongAdder(); // The rreq floods started, including the ones after a route error
+    final LongAdder failedDiscoveries = new LongAdder(); // The floods that did not find a route
+    final LongAdder cachedRoutes = new LongAdder(); // The findRoute() calls answered from the routing table of the source
+    final LongAdder routeRequests = new LongAdder(); // The rreq transmissions, one per neighbour that receives a copy
+    final LongAdder routeReplies = new LongAdder(); // The rrep transmissions, one per hop back to the source
+    final LongAdder routeErrors = new LongAdder(); // The rerr transmissions, one per precursor told about an invalidated route
+    final LongAdder localRepairs = new LongAdder(); // The broken routes that the node which detected the break repaired itself
+    final LongAdder expiredRoutes = new LongAdder(); // The forward and reverse routes removed when their lifetime ran out
+    final LongAdder rateLimitedRequests = new LongAdder(); // The rreqs a node was not allowed to originate because of RREQ_RATELIMIT
+    final LongAdder ringSearches = new LongAdder(); // The findRoute() calls that searched expanding rings
+    final LongAdder ringRetries = new LongAdder(); // The rings that were widened because they did not reach the destination
+    final LongAdder ringControlMessages = new LongAdder(); // The rreq transmissions of the ring searches
+    // With the flood comparison turned on, the rreq transmissions of the ring searches compared and of flooding the whole
+    // component of their sources instead, counted as every node reached rebroadcasting once, see FloodCost
+    final LongAdder comparedRingControlMessages = new LongAdder();
+    final LongAdder floodControlMessages = new LongAdder();
+
+    final LatencyHistogram discoveryTime = new LatencyHistogram(); // In nanoseconds
+    final LatencyHistogram pathLength = new LatencyHistogram(); // In hops, only for the discoveries that found a route
+    final LatencyHistogram controlMessages = new LatencyHistogram(); // The rreq and rrep transmissions of each discovery
+
+    // The last routing table sizes that were computed, kept for when the graph changes while it is being walked
+    private volatile long sampleTime = System.nanoTime() - SAMPLE_INTERVAL_NANOS;
+    private volatile long forwardRoutes;
+    private volatile long reverseRoutes;
+    private volatile int largestRoutingTable;
+
+    public ProtocolMetrics(Graph graph) {
+        this.graph = graph;
+    }
+
+    // Method for recording a finished discovery, route is null if the discovery failed with an exception
+    void recordDiscovery(RouteDiscovery discovery, RouteResult route, long elapsedNanos) {
+        discoveries.increment();
+        routeRequests.add(discovery.controlMessages - discovery.routeReplies);
+        routeReplies.add(discovery.routeReplies);
+        discoveryTime.record(elapsedNanos);
+        controlMessages.record(discovery.controlMessages);
+        if(route != null && route.isFound()) {
+            pathLength.record(route.getHopCount());
+        }
+        else {
+            failedDiscoveries.increment();
+        }
+    }
+
+    // Method for showing the metrics in JMX under aodv:type=ProtocolMetrics,name=<name>
+    public synchronized void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("aodv:type=ProtocolMetrics,name=" + ObjectName.quote(name));
+            if(server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName); // Replacing the metrics of an earlier instance with the same name
+            }
+            server.registerMBean(this, objectName);
+            registeredName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the protocol metrics in JMX", e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if(registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            // Already unregistered, e.g. replaced by another instance with the same name
+        }
+        registeredName = null;
+    }
+
+    @Override
+    public long getDiscoveries() {
+        return discoveries.sum();
+    }
+
+    @Override
+    public long getFailedDiscoveries() {
+        return failedDiscoveries.sum();
+    }
+
+    @Override
+    public long getCachedRoutes() {
+        return cachedRoutes.sum();
+    }
+
+    @Override
+    public long getRouteRequests() {
+        return routeRequests.sum();
+    }
+
+    @Override
+    public long getRouteReplies() {
+        return routeReplies.sum();
+    }
+
+    @Override
+    public long getRouteErrors() {
+        return routeErrors.sum();
+    }
+
+    @Override
+    public long getLocalRepairs() {
+        return localRepairs.sum();
+    }
+
+    @Override
+    public long getExpiredRoutes() {
+        return expiredRoutes.sum();
+    }
+
+    @Override
+    public long getRateLimitedRequests() {
+        return rateLimitedRequests.sum();
+    }
+
+    @Override
+    public long getRingSearches() {
+        return ringSearches.sum();
+    }
+
+    @Override
+    public long getRingRetries() {
+        return ringRetries.sum();
+    }
+
+    @Override
+    public long getRingControlMessages() {
+        return ringControlMessages.sum();
+    }
+
+    @Override
+    public long getFloodControlMessages() {
+        return floodControlMessages.sum();
+    }
+
+    @Override
+    public long getSavedControlMessages() {
+        return floodControlMessages.sum() - comparedRingControlMessages.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getDiscoveryTimeMicros() {
+        return discoveryTime.snapshot(1000);
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getPathLength() {
+        return pathLength.snapshot(1);
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getControlMessagesPerDiscovery() {
+        return controlMessages.snapshot(1);
+    }
+
+    @Override
+    public long getForwardRoutes() {
+        sampleRoutingTables();
+        return forwardRoutes;
+    }
+
+    @Override
+    public long getReverseRoutes() {
+        sampleRoutingTables();
+        return reverseRoutes;
+    }
+
+    @Override
+    public int getLargestRoutingTable() {
+        sampleRoutingTables();
+        return largestRoutingTable;
+    }
+
+    private void sampleRoutingTables() {
+        if(System.nanoTime() - sampleTime >= SAMPLE_INTERVAL_NANOS) { // Unless they were added up very recently
+            sampleRoutingTablesNow();
+        }
+    }
+
+    // Method for adding up the sizes of the routing tables of every node
+    // The metrics are read from the jmx and reporter threads, so the nodes are taken from the id table of the graph,
+    // which they can walk while the thread owning the graph changes it, rather than from its node set
+    synchronized void sampleRoutingTablesNow() {
+        long forward = 0;
+        long reverse = 0;
+        int largest = 0;
+        for(Node node : graph.getNodesById()) {
+            if(node == null) {
+                continue;
+            }
+            int size = node.forwardPath.size();
+            forward += size;
+            reverse += node.reversePath.size();
+            largest = Math.max(largest, size);
+        }
+        forwardRoutes = forward;
+        reverseRoutes = reverse;
+        largestRoutingTable = largest;
+        sampleTime = System.nanoTime();
+    }
+}
@@ -0,0 +1,44 @@
+// The attributes ProtocolMetrics shows in JMX consoles such as jconsole, under aodv:type=ProtocolMetrics
+// The histograms are composites with the count, mean, p50, p90, p99 and max of their values
+public interface ProtocolMetricsMXBean {
+
+    long getDiscoveries();
+
+    long getFailedDiscoveries();
+
+    long getCachedRoutes();
+
+    long getRouteRequests();
+
+    long getRouteReplies();
+
+    long getRouteErrors();
+
+    long getLocalRepairs();
+
+    long getExpiredRoutes();
+
+    long getRateLimitedRequests();
+
+    long getRingSearches();
+
+    long getRingRetries();
+
+    long getRingControlMessages();
+
+    long getFloodControlMessages();
+
+    long getSavedControlMessages();
+
+    LatencyHistogram.Snapshot getDiscoveryTimeMicros();
+
+    LatencyHistogram.Snapshot getPathLength();
+
+    LatencyHistogram.Snapshot getControlMessagesPerDiscovery();
+
+    long getForwardRoutes();
+
+    long getReverseRoutes();
+
+    int getLargestRoutingTable();
+}
@@ -0,0 +1,94 @@
+import java.util.Arrays;
+
+// The rreqs a node has already received (rfc 3561 section 6.5), so that it drops the copies that reach it over other paths
+// A rreq is identified by the id of its originator and its broadcast id and is remembered for PATH_DISCOVERY_TIME,
+// long enough for every copy of the flood to have arrived
+// Stored as primitive columns of an open addressing table like RouteTable, an entry whose time has passed counts as free,
+// so expired entries are overwritten or dropped when the table is rebuilt instead of being removed one by one
+public class RequestCache {
+
+    public static final long PATH_DISCOVERY_TIME = 2 * SimulatedAODV.DEFAULT_DISCOVERY_TIMEOUT; // Twice NET_TRAVERSAL_TIME in microseconds
+
+    private static final long EMPTY = -1; // Marker for an unused slot in the keys column, no key is negative
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] keys = new long[0]; // The originator id in the high and the broadcast id in the low half, or EMPTY
+    private long[] expiryTimes = new long[0]; // When each entry is forgotten
+    private int used; // The slots holding a key, expired or not
+
+    // Method for recording that the node received a rreq at the given time, in the microseconds of the protocol's clock
+    // Returns false if the node already received the same rreq within PATH_DISCOVERY_TIME, so it must drop this copy
+    public synchronized boolean markSeen(Node originator, int broadcastId, long now) {
+        long key = ((long) originator.id << 32) | (broadcastId & 0xFFFFFFFFL);
+        if(keys.length == 0) {
+            allocate(INITIAL_CAPACITY);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        int free = -1; // The first expired slot on the way, reused if the key is not in the table
+        while(keys[slot] != EMPTY) {
+            if(keys[slot] == key) {
+                if(expiryTimes[slot] > now) {
+                    return false;
+                }
+                expiryTimes[slot] = now + PATH_DISCOVERY_TIME; // Seen so long ago that it counts as a new rreq
+                return true;
+            }
+            if(free == -1 && expiryTimes[slot] <= now) {
+                free = slot;
+            }
+            slot = (slot + 1) & mask; // Linear probing to the next slot
+        }
+        if(free != -1) {
+            slot = free;
+        }
+        else if(used + 1 > keys.length / 2) {
+            rebuild(now);
+            return markSeen(originator, broadcastId, now);
+        }
+        else {
+            used++;
+        }
+        keys[slot] = key;
+        expiryTimes[slot] = now + PATH_DISCOVERY_TIME;
+        return true;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        expiryTimes = new long[capacity];
+        used = 0;
+    }
+
+    // Method for dropping the expired entries, growing the table if the ones left would still fill more than a quarter of it
+    private void rebuild(long now) {
+        long[] oldKeys = keys;
+        long[] oldExpiryTimes = expiryTimes;
+        int live = 0;
+        for(int slot = 0; slot < oldKeys.length; slot++) {
+            if(oldKeys[slot] != EMPTY && oldExpiryTimes[slot] > now) {
+                live++;
+            }
+        }
+        allocate(live + 1 > oldKeys.length / 4 ? oldKeys.length * 2 : oldKeys.length);
+        int mask = keys.length - 1;
+        for(int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if(oldKeys[oldSlot] == EMPTY || oldExpiryTimes[oldSlot] <= now) {
+                continue;
+            }
+            int slot = mix(oldKeys[oldSlot]) & mask;
+            while(keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[oldSlot];
+            expiryTimes[slot] = oldExpiryTimes[oldSlot];
+            used++;
+        }
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // Spreading consecutive broadcast ids across the table
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
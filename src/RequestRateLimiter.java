@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+// Limits how many rreqs each node may originate per second (RREQ_RATELIMIT of rfc 3561 section 6.3)
+// Every originator has a sliding window holding the times of its last rreqs, a new rreq may be sent once the oldest of them
+// is a second old, so a burst of queries is spread out instead of flooding the network again and again
+// The windows are indexed by node id and only created for the nodes that originate rreqs
+public class RequestRateLimiter {
+
+    public static final int RREQ_RATELIMIT = 10; // rfc 3561, rreqs per second
+    private static final long WINDOW = 1_000_000; // A second in the microseconds of the protocol's clock
+
+    private final RouteClock clock;
+    private long[][] windows = new long[0][]; // The send times of the last rreqs of each originator, a ring per node id
+    private int[] oldest = new int[0]; // The position of the oldest send time in each ring
+    private int limit;
+
+    public RequestRateLimiter(RouteClock clock, int limit) {
+        this.clock = clock;
+        this.limit = limit;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    // Method for changing how many rreqs a node may originate per second, 0 turns the limit off, forgets the rreqs sent so far
+    public synchronized void setLimit(int limit) {
+        this.limit = limit;
+        windows = new long[0][];
+        oldest = new int[0];
+    }
+
+    // Method for recording a rreq of the originator now if the limit allows it, returns false if it has to be dropped
+    public synchronized boolean tryAcquire(Node originator) {
+        long now = clock.now();
+        if(limit == 0) {
+            return true;
+        }
+        long[] window = windowOf(originator);
+        int position = oldest[originator.id];
+        if(now - window[position] < WINDOW) {
+            return false;
+        }
+        window[position] = now;
+        oldest[originator.id] = (position + 1) % limit;
+        return true;
+    }
+
+    // Method for reserving the earliest time the originator may send its next rreq at, now or later if the limit is reached
+    // For protocols that delay a rreq until it may be sent instead of dropping it
+    public synchronized long acquire(Node originator) {
+        long now = clock.now();
+        if(limit == 0) {
+            return now;
+        }
+        long[] window = windowOf(originator);
+        int position = oldest[originator.id];
+        long sendTime = Math.max(now, window[position] + WINDOW);
+        window[position] = sendTime;
+        oldest[originator.id] = (position + 1) % limit;
+        return sendTime;
+    }
+
+    private long[] windowOf(Node originator) {
+        int id = originator.id;
+        if(id >= windows.length) {
+            int capacity = Math.max(windows.length * 2, id + 1);
+            windows = Arrays.copyOf(windows, capacity);
+            oldest = Arrays.copyOf(oldest, capacity);
+        }
+        if(windows[id] == null) {
+            windows[id] = new long[limit];
+            Arrays.fill(windows[id], Long.MIN_VALUE / 2); // No rreqs sent yet, far enough in the past to never count
+        }
+        return windows[id];
+    }
+}
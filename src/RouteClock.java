@@ -0,0 +1,8 @@
+// The clock that route lifetimes are measured with, in microseconds
+// AODV runs on the wall clock, SimulatedAODV on the simulated clock of its Simulator
+public interface RouteClock {
+
+    RouteClock WALL = () -> System.nanoTime() / 1000;
+
+    long now();
+}
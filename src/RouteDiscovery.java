@@ -0,0 +1,40 @@
+import java.util.List;
+
+// Holds the transient state of a single route discovery so that it does not have to be stored on the shared nodes
+// Every call to findRoute() creates its own RouteDiscovery, which is simply dropped when the discovery ends
+// Which nodes already received the rreq is kept by the nodes themselves in SimulatedAODV and in a reusable FloodEngine
+// for the synchronous flood of AODV
+public class RouteDiscovery {
+
+    RouteRequest routeRequest;
+    List<Node> intermediaryPath; // The nodes involved in finding the route to visualize in the graph, null without a graph to show it in
+    long startTime; // The simulated time the discovery started at, only used by SimulatedAODV
+    long completionTime; // The simulated time the source received the rrep, -1 while the discovery is in progress
+    int controlMessages; // The number of rreq and rrep transmissions caused by the discovery
+    int routeReplies; // The number of those that were rrep transmissions
+    int routeRequests; // The number of those that were rreq transmissions
+    boolean timedOut;
+    boolean timeToLiveReached; // Whether the rreq ran out of hops somewhere, so that a wider ring could reach more nodes
+
+    public RouteDiscovery(RouteRequest routeRequest) {
+        this.routeRequest = routeRequest;
+        this.completionTime = -1;
+    }
+
+    public Node getSource() {
+        return routeRequest.source;
+    }
+
+    public Node getDestination() {
+        return routeRequest.destination;
+    }
+
+    public boolean isComplete() {
+        return completionTime != -1;
+    }
+
+    // Method for getting the simulated time the discovery took, -1 if it has not completed
+    public long getLatency() {
+        return isComplete() ? completionTime - startTime : -1;
+    }
+}
@@ -1,4 +1,4 @@
-public class RouteError {
+public class RouteError extends ControlMessage {
 
     Node destination;
     int destSequenceNum;
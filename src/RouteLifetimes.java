@@ -0,0 +1,120 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Gives the routes of a protocol instance a lifetime that is pushed back every time they are used (rfc 3561 section 6.2)
+// Every route has at most one timer in a TimingWheel, using the route only moves its expiry time in the routing table
+// and a timer that fires before that time is scheduled again for the rest, so busy routes cost no timer operations
+// Routes expire when expireRoutes() is called, which the protocols do before each operation, so the tables are up to date
+// whenever they are read without a thread of their own changing them in the middle of a discovery
+// Discoveries running in parallel would remove each other's routes halfway through, so a batch of them expires the routes
+// once up front and holds expiry off until the last of them has finished
+public class RouteLifetimes {
+
+    public static final long ACTIVE_ROUTE_TIMEOUT = 3_000_000; // rfc 3561 in microseconds
+    public static final long REVERSE_ROUTE_LIFETIME = 2 * SimulatedAODV.DEFAULT_DISCOVERY_TIMEOUT; // Twice NET_TRAVERSAL_TIME
+
+    private static final long TICK_LENGTH = 1000; // Routes expire with a precision of a millisecond
+
+    private final RouteClock clock;
+    private final TimingWheel wheel;
+    private final LongAdder expiredRoutes; // Where the expired routes are counted
+    private volatile long activeRouteTimeout; // 0 if routes never expire
+    private final AtomicInteger holds = new AtomicInteger(); // The batches of parallel discoveries running, routes only expire while there are none
+
+    public RouteLifetimes(RouteClock clock, LongAdder expiredRoutes) {
+        this.clock = clock;
+        this.wheel = new TimingWheel(TICK_LENGTH, clock.now());
+        this.expiredRoutes = expiredRoutes;
+        this.activeRouteTimeout = ACTIVE_ROUTE_TIMEOUT;
+    }
+
+    public long getActiveRouteTimeout() {
+        return activeRouteTimeout;
+    }
+
+    // Method for changing how long a route lives after it was last used, 0 turns lifetimes off for the routes recorded from now on
+    public void setActiveRouteTimeout(long activeRouteTimeout) {
+        this.activeRouteTimeout = activeRouteTimeout;
+    }
+
+    // Method for getting the expiry time of a route that is used now, computed once for all the hops of a data transfer,
+    // Long.MAX_VALUE while lifetimes are turned off
+    public long activeRouteExpiry() {
+        long timeout = activeRouteTimeout;
+        return timeout > 0 ? clock.now() + timeout : Long.MAX_VALUE;
+    }
+
+    // Method for starting or refreshing the lifetime of an active route
+    public void activate(RouteTable table, Node destination) {
+        if(activeRouteTimeout > 0) {
+            keepAlive(table, destination, activeRouteExpiry());
+        }
+    }
+
+    // Method for starting or refreshing the lifetime of a reverse route, which is only needed until the rrep has passed
+    public void activateReverse(RouteTable table, Node source) {
+        if(activeRouteTimeout > 0) {
+            keepAlive(table, source, clock.now() + REVERSE_ROUTE_LIFETIME);
+        }
+    }
+
+    // Method for making a route live at least until the expiry time, nothing happens if there is no route to the destination
+    public void keepAlive(RouteTable table, Node destination, long expiryTime) {
+        if(activeRouteTimeout > 0 && table.setExpiryTime(destination, expiryTime)) {
+            schedule(table, destination, expiryTime);
+        }
+    }
+
+    private void schedule(RouteTable table, Node destination, long expiryTime) {
+        RouteTimer timer = new RouteTimer(table, destination);
+        if(table.armTimer(destination, timer)) { // Another thread may have armed a timer for the route meanwhile
+            wheel.schedule(timer, expiryTime);
+        }
+    }
+
+    // Method for removing every route whose lifetime has run out by now
+    public void expireRoutes() {
+        if(holds.get() == 0) {
+            wheel.advanceTo(clock.now());
+        }
+    }
+
+    // Method for keeping routes from expiring until release() is called, e.g. while discoveries run in parallel
+    public void hold() {
+        holds.incrementAndGet();
+    }
+
+    public void release() {
+        holds.decrementAndGet();
+    }
+
+    public int pendingTimers() {
+        return wheel.size();
+    }
+
+    // The timer of one route, it removes the route or schedules itself again if the route was used since it was armed
+    private class RouteTimer extends TimingWheel.Timeout {
+
+        private final RouteTable table;
+        private final Node destination;
+
+        RouteTimer(RouteTable table, Node destination) {
+            this.table = table;
+            this.destination = destination;
+        }
+
+        @Override
+        protected void expire() {
+            long now = clock.now();
+            long expiryTime = table.expire(destination, this, now);
+            if(expiryTime == Long.MIN_VALUE) {
+                return; // The route was removed or given a new timer since this one was armed
+            }
+            if(expiryTime <= now) {
+                expiredRoutes.increment();
+                return;
+            }
+            schedule(table, destination, expiryTime);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+// A source and destination pair to find a route between in a batch of route discoveries
+public class RouteQuery {
+
+    Node source;
+    Node destination;
+
+    public RouteQuery(Node source, Node destination) {
+        this.source = source;
+        this.destination = destination;
+    }
+
+    public Node getSource() {
+        return source;
+    }
+
+    public Node getDestination() {
+        return destination;
+    }
+
+    @Override
+    public String toString() {
+        return source + " -> " + destination;
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.List;
+
+// The outcome of a single route query of a batch
+public class RouteQueryResult {
+
+    RouteQuery query;
+    RouteResult.Status status; // How the query ended, so a throttled or cancelled query can be told from an unreachable destination
+    List<Node> path; // The nodes of the route from source to destination, empty if no route was found
+    int hopCount; // The number of hops of the route, -1 if no route was found
+    int controlMessages; // The number of rreq, rrep and gratuitous reply transmissions the query caused
+    long elapsedNanos; // The wall clock time the query took
+
+    public RouteQueryResult(RouteQuery query) {
+        this.query = query;
+        this.path = List.of();
+        this.hopCount = -1;
+        this.status = RouteResult.Status.UNREACHABLE;
+    }
+
+    // Method for taking the outcome of the query over from the route the discovery returned
+    void record(RouteResult route) {
+        status = route.getStatus();
+        if(route.isFound()) {
+            path = route.getPath();
+            hopCount = route.getHopCount();
+        }
+    }
+
+    public RouteQuery getQuery() {
+        return query;
+    }
+
+    public RouteResult.Status getStatus() {
+        return status;
+    }
+
+    // Method for building the "A -> B -> C" form of the path, empty if no route was found
+    public String pathString() {
+        return RouteResult.pathString(path);
+    }
+
+    public List<Node> getPath() {
+        return path;
+    }
+
+    public int getHopCount() {
+        return hopCount;
+    }
+
+    public int getControlMessages() {
+        return controlMessages;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean isFound() {
+        return status == RouteResult.Status.FOUND;
+    }
+
+    @Override
+    public String toString() {
+        return "Query: " + query + " Status: " + status + " Path: " + path + " Hop Count: " + hopCount + " Control Messages: " + controlMessages + " Elapsed: " + elapsedNanos + "ns";
+    }
+}
@@ -1,10 +1,11 @@
-public class RouteReply {
+public class RouteReply extends ControlMessage {
 
     Node source;
     Node destination;
     int destSequenceNum;
     int hopCount;
     int broadcastID;
+    boolean gratuitous; // Sent by an intermediate node to the rreq destination, travels along the forward path instead of back
 
 
     public RouteReply(Node source, Node destination, int destSequenceNum, int broadcastID, int hopCount) {
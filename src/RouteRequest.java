@@ -1,6 +1,6 @@
 import java.util.Objects;
 
-public class RouteRequest {
+public class RouteRequest extends ControlMessage {
 
     Node source;
     Node destination;
@@ -8,6 +8,7 @@ public class RouteRequest {
     int destSequenceNum;
     int hopCount;
     int broadcastID;
+    int timeToLive; // The number of hops the rreq may travel, a local repair only searches the neighbourhood of the break
 
     public RouteRequest(Node source, Node destination, int sourceSequenceNum, int destSequenceNum, int broadcastID) {
 
@@ -17,6 +18,7 @@ public class RouteRequest {
         this.destSequenceNum = destSequenceNum;
         this.broadcastID = broadcastID;
         this.hopCount = 0;
+        this.timeToLive = Integer.MAX_VALUE;
     }
 
     @Override
@@ -0,0 +1,131 @@
+import java.util.Collections;
+import java.util.List;
+
+// The outcome of finding a route or sending data along it
+// The path is kept as a list of nodes and is only turned into a "A -> B -> C" string when toString() is called
+public class RouteResult {
+
+    public enum Status {
+        FOUND, // The route was found and every hop of it exists
+        UNREACHABLE, // The rreq flood did not reach the destination
+        NO_ROUTE, // A node on the way has no route to the destination
+        MISSING_EDGE, // The edge from failedAt to failedNextHop does not exist anymore
+        MISSING_NODE, // The next hop failedNextHop does not exist anymore
+        INVALID_REQUEST, // The source or destination is not in the graph, or they are the same node
+        CANCELLED, // The discovery was cancelled before it finished
+        RATE_LIMITED // The source already originated as many rreqs as it may within the last second
+    }
+
+    private static final RouteResult UNREACHABLE = new RouteResult(Status.UNREACHABLE, Collections.emptyList(), null, null);
+    private static final RouteResult INVALID_REQUEST = new RouteResult(Status.INVALID_REQUEST, Collections.emptyList(), null, null);
+    private static final RouteResult CANCELLED = new RouteResult(Status.CANCELLED, Collections.emptyList(), null, null);
+    private static final RouteResult RATE_LIMITED = new RouteResult(Status.RATE_LIMITED, Collections.emptyList(), null, null);
+
+    private Status status;
+    private List<Node> path; // The nodes from the source up to the destination or up to the node where forwarding failed
+    private Node failedAt; // The node that could not forward the data, null if forwarding did not fail
+    private Node failedNextHop; // The next hop failedAt tried to reach, null if forwarding did not fail
+
+    private RouteResult(Status status, List<Node> path, Node failedAt, Node failedNextHop) {
+        this.status = status;
+        this.path = path;
+        this.failedAt = failedAt;
+        this.failedNextHop = failedNextHop;
+    }
+
+    public static RouteResult found(List<Node> path) {
+        return new RouteResult(Status.FOUND, Collections.unmodifiableList(path), null, null);
+    }
+
+    public static RouteResult unreachable() {
+        return UNREACHABLE;
+    }
+
+    public static RouteResult invalidRequest() {
+        return INVALID_REQUEST;
+    }
+
+    public static RouteResult cancelled() {
+        return CANCELLED;
+    }
+
+    public static RouteResult rateLimited() {
+        return RATE_LIMITED;
+    }
+
+    public static RouteResult noRoute(List<Node> path, Node failedAt) {
+        return new RouteResult(Status.NO_ROUTE, Collections.unmodifiableList(path), failedAt, null);
+    }
+
+    public static RouteResult missingEdge(List<Node> path, Node failedAt, Node failedNextHop) {
+        return new RouteResult(Status.MISSING_EDGE, Collections.unmodifiableList(path), failedAt, failedNextHop);
+    }
+
+    public static RouteResult missingNode(List<Node> path, Node failedAt, Node failedNextHop) {
+        return new RouteResult(Status.MISSING_NODE, Collections.unmodifiableList(path), failedAt, failedNextHop);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    public List<Node> getPath() {
+        return path;
+    }
+
+    // Method for getting the number of hops of the path, -1 if no route was found
+    public int getHopCount() {
+        return isFound() ? path.size() - 1 : -1;
+    }
+
+    public Node getFailedAt() {
+        return failedAt;
+    }
+
+    public Node getFailedNextHop() {
+        return failedNextHop;
+    }
+
+    // Method for building the "A -> B -> C" form of the path
+    public String pathString() {
+        return pathString(path);
+    }
+
+    // Method for building the "A -> B -> C" form of any list of nodes
+    static String pathString(List<Node> path) {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < path.size(); i++) {
+            if(i > 0) {
+                builder.append(" -> ");
+            }
+            builder.append(path.get(i).identifier);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        switch(status) {
+            case FOUND:
+                return pathString();
+            case UNREACHABLE:
+                return "DESTINATION UNREACHABLE!";
+            case MISSING_EDGE:
+                return "MISSING EDGE BETWEEN " + failedAt + " AND " + failedNextHop;
+            case MISSING_NODE:
+                return "MISSING NODE " + failedNextHop;
+            case NO_ROUTE:
+                return "NO ROUTE FROM " + failedAt;
+            case CANCELLED:
+                return "DISCOVERY CANCELLED!";
+            case RATE_LIMITED:
+                return "RREQ RATE LIMIT REACHED!";
+            default:
+                return "INVALID ROUTE REQUEST!";
+        }
+    }
+}
@@ -0,0 +1,346 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// A hash table of routes keyed by destination, stored as columns instead of one RoutingTable object per route
+// Routes are found by the dense id the graph gave their destination and keep the nodes themselves, so reading a route
+// never resolves an id, which would have to know the graph the node belongs to
+// Lookups, updates and removals are constant time and RoutingTable objects are only created when an entry is read through get()
+// Every operation is synchronized on the table so that concurrent route discoveries can share the nodes safely
+// Every route also keeps its precursors, the neighbours that forward through this node to the destination (rfc 3561 section 6.2),
+// which are the only nodes that have to be told with a rerr when the route breaks
+// Routes can also have an expiry time and the timer of a RouteLifetimes that removes them once it has passed
+public class RouteTable {
+
+    private static final int EMPTY = -1; // Marker for an unused slot in the keys column
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] destinations; // The id of the destination in each slot, or EMPTY
+    private Node[] destinationNodes; // The destination in each slot
+    private Node[] nextHops; // The next hop towards the destination
+    private int[] hopCounts; // The number of hops to the destination
+    private int[] destSequenceNums; // The latest known sequence number of the destination
+    private Node[][] precursors; // The precursors of each route, null while it has none
+    private long[] expiryTimes; // When each route expires, Long.MAX_VALUE for routes without a lifetime
+    private TimingWheel.Timeout[] timers; // The timer armed for the expiry of each route, null while it has none
+    private int size;
+
+    public RouteTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        destinations = new int[capacity];
+        Arrays.fill(destinations, EMPTY);
+        destinationNodes = new Node[capacity];
+        nextHops = new Node[capacity];
+        hopCounts = new int[capacity];
+        destSequenceNums = new int[capacity];
+        precursors = new Node[capacity][];
+        expiryTimes = new long[capacity];
+        timers = new TimingWheel.Timeout[capacity];
+        size = 0;
+    }
+
+    // Method for finding the slot of a destination, returns -1 if there is no route to it
+    private int slotOf(int destination) {
+        int mask = destinations.length - 1;
+        int slot = mix(destination) & mask;
+        while(destinations[slot] != EMPTY) {
+            if(destinations[slot] == destination) {
+                return slot;
+            }
+            slot = (slot + 1) & mask; // Linear probing to the next slot
+        }
+        return -1;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9; // Spreading consecutive ids across the table
+        return hash ^ (hash >>> 16);
+    }
+
+    // Method for adding a route or replacing the existing one to the same destination
+    public synchronized void put(Node destination, Node nextHop, int hopCount, int destSequenceNum) {
+        insert(destination, nextHop, hopCount, destSequenceNum);
+    }
+
+    public synchronized void put(RoutingTable route) {
+        put(route.destination, route.nextHop, route.hopCount, route.destSequenceNum);
+    }
+
+    // Replacing a route keeps its precursors, they still forward through this node whichever next hop it uses,
+    // and its lifetime, which the protocol refreshes whenever it records the route
+    private int insert(Node destination, Node nextHop, int hopCount, int destSequenceNum) {
+        if((size + 1) * 4 > destinations.length * 3) {
+            resize(destinations.length * 2); // Keeping the load factor under 0.75
+        }
+        int mask = destinations.length - 1;
+        int slot = mix(destination.id) & mask;
+        while(destinations[slot] != EMPTY && destinations[slot] != destination.id) {
+            slot = (slot + 1) & mask;
+        }
+        if(destinations[slot] == EMPTY) {
+            destinations[slot] = destination.id;
+            precursors[slot] = null;
+            expiryTimes[slot] = Long.MAX_VALUE;
+            timers[slot] = null;
+            size++;
+        }
+        destinationNodes[slot] = destination;
+        nextHops[slot] = nextHop;
+        hopCounts[slot] = hopCount;
+        destSequenceNums[slot] = destSequenceNum;
+        return slot;
+    }
+
+    // Method for adding a route only if there is no route to the destination yet, returns true if it was added
+    public synchronized boolean putIfAbsent(Node destination, Node nextHop, int hopCount, int destSequenceNum) {
+        if(slotOf(destination.id) != -1) {
+            return false;
+        }
+        insert(destination, nextHop, hopCount, destSequenceNum);
+        return true;
+    }
+
+    // Method for updating a route following the aodv rules
+    // The route is only replaced if it is new, has a fresher destination sequence number, or is shorter with the same sequence number
+    public synchronized boolean update(Node destination, Node nextHop, int hopCount, int destSequenceNum) {
+        int slot = slotOf(destination.id);
+        if(slot != -1) {
+            int currentSequenceNum = destSequenceNums[slot];
+            if(destSequenceNum < currentSequenceNum || (destSequenceNum == currentSequenceNum && hopCount >= hopCounts[slot])) {
+                return false;
+            }
+            nextHops[slot] = nextHop;
+            hopCounts[slot] = hopCount;
+            destSequenceNums[slot] = destSequenceNum;
+            return true;
+        }
+        insert(destination, nextHop, hopCount, destSequenceNum);
+        return true;
+    }
+
+    private void resize(int capacity) {
+        int[] oldDestinations = destinations;
+        Node[] oldDestinationNodes = destinationNodes;
+        Node[] oldNextHops = nextHops;
+        int[] oldHopCounts = hopCounts;
+        int[] oldDestSequenceNums = destSequenceNums;
+        Node[][] oldPrecursors = precursors;
+        long[] oldExpiryTimes = expiryTimes;
+        TimingWheel.Timeout[] oldTimers = timers;
+        allocate(capacity);
+        for(int i = 0; i < oldDestinations.length; i++) {
+            if(oldDestinations[i] != EMPTY) {
+                int slot = insert(oldDestinationNodes[i], oldNextHops[i], oldHopCounts[i], oldDestSequenceNums[i]);
+                precursors[slot] = oldPrecursors[i];
+                expiryTimes[slot] = oldExpiryTimes[i];
+                timers[slot] = oldTimers[i];
+            }
+        }
+    }
+
+    // Method for getting the route to a destination as a RoutingTable, returns null if there is no route
+    public synchronized RoutingTable get(Node destination) {
+        int slot = slotOf(destination.id);
+        if(slot == -1) {
+            return null;
+        }
+        return routeAt(slot);
+    }
+
+    private RoutingTable routeAt(int slot) {
+        RoutingTable route = new RoutingTable(destinationNodes[slot], nextHops[slot], hopCounts[slot], destSequenceNums[slot]);
+        route.precursors = nodesOf(precursors[slot]);
+        route.expiryTime = expiryTimes[slot];
+        return route;
+    }
+
+    public synchronized boolean contains(Node destination) {
+        return slotOf(destination.id) != -1;
+    }
+
+    // Method for getting the next hop towards a destination without creating a RoutingTable, returns null if there is no route
+    public synchronized Node nextHopTo(Node destination) {
+        int slot = slotOf(destination.id);
+        return slot == -1 ? null : nextHops[slot];
+    }
+
+    // Method for getting the hop count to a destination, returns -1 if there is no route
+    public synchronized int hopCountTo(Node destination) {
+        int slot = slotOf(destination.id);
+        return slot == -1 ? -1 : hopCounts[slot];
+    }
+
+    // Method for getting the destination sequence number of a route, returns -1 if there is no route
+    public synchronized int destSequenceNumOf(Node destination) {
+        int slot = slotOf(destination.id);
+        return slot == -1 ? -1 : destSequenceNums[slot];
+    }
+
+    // Method for removing the route to a destination
+    public synchronized boolean remove(Node destination) {
+        int slot = slotOf(destination.id);
+        if(slot == -1) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    private void removeAt(int slot) {
+        if(timers[slot] != null) {
+            timers[slot].cancel();
+        }
+        // Shifting the following entries of the probe chain back so that no tombstones are needed
+        int mask = destinations.length - 1;
+        int next = (slot + 1) & mask;
+        while(destinations[next] != EMPTY) {
+            int home = mix(destinations[next]) & mask;
+            // Moving the entry into the hole if its home slot is not between the hole and its current slot
+            if(((next - home) & mask) >= ((next - slot) & mask)) {
+                destinations[slot] = destinations[next];
+                destinationNodes[slot] = destinationNodes[next];
+                nextHops[slot] = nextHops[next];
+                hopCounts[slot] = hopCounts[next];
+                destSequenceNums[slot] = destSequenceNums[next];
+                precursors[slot] = precursors[next];
+                expiryTimes[slot] = expiryTimes[next];
+                timers[slot] = timers[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        destinations[slot] = EMPTY;
+        destinationNodes[slot] = null; // Not holding on to nodes that may be removed from the graph
+        nextHops[slot] = null;
+        precursors[slot] = null;
+        timers[slot] = null;
+        size--;
+    }
+
+    // Method for reading the next hop to a destination while data is forwarded along the route, returns null if there is no route
+    // Forwarding also pushes back the expiry time of the route and of the route back to the source (rfc 3561 section 6.2),
+    // in the same lookup so that refreshing routes costs no extra locking per hop, routes without a timer have no lifetime to push back
+    public synchronized Node forwardTo(Node destination, Node source, long expiryTime) {
+        int slot = slotOf(destination.id);
+        if(slot == -1) {
+            return null;
+        }
+        if(timers[slot] != null) {
+            expiryTimes[slot] = Math.max(expiryTimes[slot], expiryTime);
+        }
+        int sourceSlot = slotOf(source.id);
+        if(sourceSlot != -1 && timers[sourceSlot] != null) {
+            expiryTimes[sourceSlot] = Math.max(expiryTimes[sourceSlot], expiryTime);
+        }
+        return nextHops[slot];
+    }
+
+    // Method for setting when the route to a destination expires,
+    // returns true if the route exists but has no timer armed for its expiry yet
+    public synchronized boolean setExpiryTime(Node destination, long expiryTime) {
+        int slot = slotOf(destination.id);
+        if(slot == -1) {
+            return false;
+        }
+        expiryTimes[slot] = expiryTime;
+        return timers[slot] == null;
+    }
+
+    // Method for arming the timer that expires the route to a destination,
+    // returns false if the route is gone or already has a timer, the given timer must not be scheduled then
+    public synchronized boolean armTimer(Node destination, TimingWheel.Timeout timer) {
+        int slot = slotOf(destination.id);
+        if(slot == -1 || timers[slot] != null) {
+            return false;
+        }
+        timers[slot] = timer;
+        return true;
+    }
+
+    // Method for handling the timer of the route to a destination firing at the given time
+    // The route is removed if its expiry time has passed, otherwise the timer is disarmed so that it can be armed again for the rest,
+    // returns the expiry time of the route or Long.MIN_VALUE if the timer no longer belongs to it
+    public synchronized long expire(Node destination, TimingWheel.Timeout timer, long now) {
+        int slot = slotOf(destination.id);
+        if(slot == -1 || timers[slot] != timer) {
+            return Long.MIN_VALUE;
+        }
+        long expiryTime = expiryTimes[slot];
+        timers[slot] = null; // The timer has fired, so there is nothing to cancel
+        if(expiryTime <= now) {
+            removeAt(slot);
+        }
+        return expiryTime;
+    }
+
+    // Method for adding a neighbour that forwards through this node to the destination, returns false if there is no
+    // route to the destination or the neighbour is already one of its precursors
+    public synchronized boolean addPrecursor(Node destination, Node precursor) {
+        int slot = slotOf(destination.id);
+        if(slot == -1) {
+            return false;
+        }
+        Node[] current = precursors[slot];
+        if(current == null) {
+            precursors[slot] = new Node[] {precursor};
+            return true;
+        }
+        for(Node node : current) {
+            if(node.id == precursor.id) {
+                return false;
+            }
+        }
+        // The lists are as short as the number of neighbours, so they are copied on every addition instead of growing
+        Node[] added = Arrays.copyOf(current, current.length + 1);
+        added[current.length] = precursor;
+        precursors[slot] = added;
+        return true;
+    }
+
+    // Method for getting the precursors of the route to a destination, empty if there is no route or no precursors
+    public synchronized List<Node> precursorsOf(Node destination) {
+        int slot = slotOf(destination.id);
+        return slot == -1 ? List.of() : nodesOf(precursors[slot]);
+    }
+
+    private static List<Node> nodesOf(Node[] nodes) {
+        return nodes == null ? List.of() : List.of(nodes);
+    }
+
+    // Method for getting every destination that is reached through the given next hop
+    public synchronized List<Node> destinationsVia(Node nextHop) {
+        List<Node> destinationsVia = new ArrayList<>();
+        for(int i = 0; i < destinations.length; i++) {
+            if(destinations[i] != EMPTY && nextHops[i].id == nextHop.id) {
+                destinationsVia.add(destinationNodes[i]);
+            }
+        }
+        return destinationsVia;
+    }
+
+    // Method for visiting every route in the table
+    public synchronized void forEach(Consumer<RoutingTable> action) {
+        for(int i = 0; i < destinations.length; i++) {
+            if(destinations[i] != EMPTY) {
+                action.accept(routeAt(i));
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for(TimingWheel.Timeout timer : timers) {
+            if(timer != null) {
+                timer.cancel();
+            }
+        }
+        allocate(INITIAL_CAPACITY);
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// A leveled log for routing decisions that keeps the cost of logging off the routing threads
+// Messages below the level return immediately without formatting, every other message is stored unformatted with its
+// arguments in a bounded lock-free ring buffer and is only formatted when the buffer is drained to the sink in batches
+// When the buffer is full, new messages are dropped and counted instead of blocking the routing threads
+public class RoutingLog {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_DRAIN_PERIOD_MS = 16; // About one drain per frame
+    private static final int MAX_ARGUMENTS = 3;
+
+    // One daemon thread drains every log so that creating many logs does not create many threads
+    private static final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "routing-log-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile LogLevel level;
+    private LogSink sink;
+    private ScheduledFuture<?> drainTask;
+
+    // The ring buffer, every slot has a sequence number telling whether it is free for the producer or ready for the consumer
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] formats;
+    private final Object[] arguments; // MAX_ARGUMENTS arguments per slot
+    private final int[] argumentCounts;
+    private final AtomicLong tail; // The next position producers claim
+    private long head; // The next position the consumer reads, only touched while holding the drain lock
+    private final AtomicLong dropped; // The number of messages dropped because the buffer was full
+
+    public RoutingLog(LogSink sink, LogLevel level) {
+        this(sink, level, DEFAULT_CAPACITY);
+    }
+
+    public RoutingLog(LogSink sink, LogLevel level, int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1; // Rounding the capacity up to a power of two
+        this.sink = sink;
+        this.level = level;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for(int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.formats = new String[size];
+        this.arguments = new Object[size * MAX_ARGUMENTS];
+        this.argumentCounts = new int[size];
+        this.tail = new AtomicLong();
+        this.head = 0;
+        this.dropped = new AtomicLong();
+    }
+
+    // Method for draining the log to its sink periodically in the background
+    public synchronized void start(long periodMs) {
+        if(drainTask == null) {
+            drainTask = drainer.scheduleWithFixedDelay(this::flush, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Method for stopping the background draining and handing over the remaining messages
+    public synchronized void stop() {
+        if(drainTask != null) {
+            drainTask.cancel(false);
+            drainTask = null;
+        }
+        flush();
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    public boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != LogLevel.OFF;
+    }
+
+    // Fixed arity overloads so that calls below the level do not even allocate a varargs array
+    public void debug(String message) {
+        if(isEnabled(LogLevel.DEBUG)) {
+            offer(message, 0, null, null, null);
+        }
+    }
+
+    public void debug(String format, Object first) {
+        if(isEnabled(LogLevel.DEBUG)) {
+            offer(format, 1, first, null, null);
+        }
+    }
+
+    public void debug(String format, Object first, Object second) {
+        if(isEnabled(LogLevel.DEBUG)) {
+            offer(format, 2, first, second, null);
+        }
+    }
+
+    public void debug(String format, Object first, Object second, Object third) {
+        if(isEnabled(LogLevel.DEBUG)) {
+            offer(format, 3, first, second, third);
+        }
+    }
+
+    public void info(String message) {
+        if(isEnabled(LogLevel.INFO)) {
+            offer(message, 0, null, null, null);
+        }
+    }
+
+    public void info(String format, Object first) {
+        if(isEnabled(LogLevel.INFO)) {
+            offer(format, 1, first, null, null);
+        }
+    }
+
+    public void info(String format, Object first, Object second) {
+        if(isEnabled(LogLevel.INFO)) {
+            offer(format, 2, first, second, null);
+        }
+    }
+
+    public void warn(String message) {
+        if(isEnabled(LogLevel.WARN)) {
+            offer(message, 0, null, null, null);
+        }
+    }
+
+    public void warn(String format, Object first) {
+        if(isEnabled(LogLevel.WARN)) {
+            offer(format, 1, first, null, null);
+        }
+    }
+
+    public void warn(String format, Object first, Object second) {
+        if(isEnabled(LogLevel.WARN)) {
+            offer(format, 2, first, second, null);
+        }
+    }
+
+    // Method for adding a message to the ring buffer, returns false if the buffer was full
+    private boolean offer(String format, int count, Object first, Object second, Object third) {
+        long position = tail.get();
+        int slot;
+        while(true) {
+            slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if(difference == 0) {
+                if(tail.compareAndSet(position, position + 1)) {
+                    break; // The slot is claimed
+                }
+                position = tail.get();
+            }
+            else if(difference < 0) {
+                dropped.incrementAndGet(); // The consumer has not freed the slot yet, so the buffer is full
+                return false;
+            }
+            else {
+                position = tail.get(); // Another producer claimed the slot in the meantime
+            }
+        }
+
+        int offset = slot * MAX_ARGUMENTS;
+        formats[slot] = format;
+        arguments[offset] = first;
+        arguments[offset + 1] = second;
+        arguments[offset + 2] = third;
+        argumentCounts[slot] = count;
+        sequences.set(slot, position + 1); // Publishing the slot to the consumer
+        return true;
+    }
+
+    // Method for formatting every message in the buffer and handing them to the sink as one batch
+    public synchronized void flush() {
+        List<String> lines = new ArrayList<>();
+        long droppedMessages = dropped.getAndSet(0);
+        while(true) {
+            int slot = (int) head & mask;
+            if(sequences.get(slot) != head + 1) {
+                break; // The next slot has not been published yet
+            }
+            lines.add(format(formats[slot], arguments, slot * MAX_ARGUMENTS, argumentCounts[slot]));
+            formats[slot] = null;
+            for(int i = 0; i < MAX_ARGUMENTS; i++) {
+                arguments[slot * MAX_ARGUMENTS + i] = null;
+            }
+            sequences.set(slot, head + mask + 1); // Handing the slot back to the producers for the next round
+            head++;
+        }
+        if(droppedMessages > 0) {
+            lines.add("(" + droppedMessages + " log messages dropped)");
+        }
+        if(!lines.isEmpty()) {
+            sink.write(lines);
+        }
+    }
+
+    // Method for replacing every {} in the format with the next argument
+    private static String format(String format, Object[] arguments, int offset, int count) {
+        if(count == 0) {
+            return format;
+        }
+        StringBuilder builder = new StringBuilder(format.length() + 16 * count);
+        int argument = 0;
+        int start = 0;
+        int placeholder;
+        while(argument < count && (placeholder = format.indexOf("{}", start)) != -1) {
+            builder.append(format, start, placeholder).append(arguments[offset + argument++]);
+            start = placeholder + 2;
+        }
+        return builder.append(format, start, format.length()).toString();
+    }
+}
@@ -1,9 +1,13 @@
+import java.util.List;
+
 public class RoutingTable {
 
     Node destination;
     Node nextHop;
     int hopCount;
     int destSequenceNum;
+    List<Node> precursors = List.of(); // The neighbours that forward through this node to the destination
+    long expiryTime = Long.MAX_VALUE; // When the route expires on the clock of the protocol that recorded it
 
     public RoutingTable(Node destination, Node nextHop, int hopCount, int destSequenceNum) {
         this.destination = destination;
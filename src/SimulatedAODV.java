@@ -0,0 +1,277 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// An event driven version of the aodv protocol that runs on the Simulator
+// Every rreq, rrep and rerr is a ControlMessage that is delivered to its receiver after the delay of the link it was sent over,
+// so discoveries take simulated time, can overlap each other and can time out
+// Routes live for the active route timeout of simulated time and expire before every message is handled
+// Every node drops the copies of a rreq it already received, identified by originator and broadcast id, and a node that
+// originates more than RREQ_RATELIMIT rreqs per second has to wait with the next one until the limit allows it
+public class SimulatedAODV {
+
+    public static final long DEFAULT_DISCOVERY_TIMEOUT = 2_800_000; // NET_TRAVERSAL_TIME of rfc 3561 in microseconds
+
+    private Graph graph;
+    private Simulator simulator;
+    private LinkDelays linkDelays;
+    private long discoveryTimeout;
+    private int broadcastId;
+    private Map<Integer, RouteDiscovery> discoveries; // The discoveries started by this instance keyed by broadcast id
+    private long controlMessagesSent; // The number of control messages sent over all the discoveries and route errors
+    private LongAdder expiredRoutes; // The routes whose lifetime ran out
+    private RouteLifetimes lifetimes;
+    private RequestRateLimiter rateLimiter;
+    private long delayedRequests; // The rreqs that had to wait for the rate limit
+
+    public SimulatedAODV(Graph graph, Simulator simulator, LinkDelays linkDelays) {
+        this.graph = graph;
+        this.simulator = simulator;
+        this.linkDelays = linkDelays;
+        this.discoveryTimeout = DEFAULT_DISCOVERY_TIMEOUT;
+        this.broadcastId = 0;
+        this.discoveries = new HashMap<>();
+        this.controlMessagesSent = 0;
+        this.expiredRoutes = new LongAdder();
+        this.lifetimes = new RouteLifetimes(simulator::now, expiredRoutes);
+        this.rateLimiter = new RequestRateLimiter(simulator::now, RequestRateLimiter.RREQ_RATELIMIT);
+    }
+
+    public void setDiscoveryTimeout(long discoveryTimeout) {
+        this.discoveryTimeout = discoveryTimeout;
+    }
+
+    // Method for changing how much simulated time a route lives after it was last used, 0 keeps routes until they break
+    public void setActiveRouteTimeout(long activeRouteTimeout) {
+        lifetimes.setActiveRouteTimeout(activeRouteTimeout);
+    }
+
+    // Method for changing how many rreqs a node may originate per second of simulated time, 0 turns the limit off
+    public void setRequestRateLimit(int requestsPerSecond) {
+        rateLimiter.setLimit(requestsPerSecond);
+    }
+
+    // Method for starting a route discovery at the current simulated time
+    // The returned discovery completes while the simulator runs, returns null if source or destination are not in the graph
+    public RouteDiscovery findRoute(Node source, Node destination) {
+        lifetimes.expireRoutes();
+        if(!graph.containsNode(source) || !graph.containsNode(destination) || source.equals(destination)) {
+            return null;
+        }
+        int destSequenceNum = Math.max(source.forwardPath.destSequenceNumOf(destination), 0);
+        RouteRequest routeRequest = new RouteRequest(source, destination, source.incrementSequenceNum(), destSequenceNum, ++broadcastId);
+        RouteDiscovery discovery = new RouteDiscovery(routeRequest);
+        discovery.startTime = simulator.now();
+        source.seenRequests.markSeen(source, routeRequest.broadcastID, discovery.startTime); // The source ignores its own rreq when neighbours rebroadcast it
+        discoveries.put(routeRequest.broadcastID, discovery);
+
+        // The rreq is sent once the rate limit of the source allows it, the discovery time includes the wait
+        long sendTime = rateLimiter.acquire(source);
+        if(sendTime == discovery.startTime) {
+            broadcastRouteRequest(discovery, routeRequest, source, null);
+        }
+        else {
+            delayedRequests++;
+            simulator.scheduleAt(sendTime, delayed -> broadcastRouteRequest(discovery, routeRequest, source, null));
+        }
+
+        // Giving up on the discovery if no rrep reaches the source in time
+        simulator.scheduleAt(sendTime + discoveryTimeout, timeout -> {
+            if(!discovery.isComplete()) {
+                discovery.timedOut = true;
+            }
+            discoveries.remove(routeRequest.broadcastID);
+        });
+        return discovery;
+    }
+
+    // Method for breaking the link between two nodes during the simulation
+    // Both ends invalidate the routes that used the link and send route errors to their neighbours
+    public void breakLink(Node first, Node second) {
+        lifetimes.expireRoutes();
+        graph.removeEdge(first, second);
+        invalidateRoutesVia(first, second);
+        invalidateRoutesVia(second, first);
+    }
+
+    // Method for handling a control message that reached its receiver
+    void receive(ControlMessage message) {
+        lifetimes.expireRoutes();
+        if(message instanceof RouteRequest routeRequest) {
+            receiveRouteRequest(routeRequest);
+        }
+        else if(message instanceof RouteReply routeReply) {
+            receiveRouteReply(routeReply);
+        }
+        else if(message instanceof RouteError routeError) {
+            receiveRouteError(routeError);
+        }
+    }
+
+    private void receiveRouteRequest(RouteRequest routeRequest) {
+        RouteDiscovery discovery = discoveries.get(routeRequest.broadcastID); // Null once the discovery is over, its rreqs are still handled
+        Node receiver = routeRequest.receiver;
+        if(!receiver.seenRequests.markSeen(routeRequest.source, routeRequest.broadcastID, simulator.now())) {
+            return; // Dropping the copies of a rreq the receiver already received over another path
+        }
+
+        // Recording the reverse path to the source through the node the rreq came from
+        if(receiver.reversePath.update(routeRequest.source, routeRequest.sender, routeRequest.hopCount, routeRequest.sourceSequenceNum)) {
+            lifetimes.activateReverse(receiver.reversePath, routeRequest.source);
+        }
+
+        Node destination = routeRequest.destination;
+        if(receiver.equals(destination)) {
+            // The destination replies with its own incremented sequence number
+            sendRouteReply(discovery, receiver, new RouteReply(routeRequest.source, destination, receiver.incrementSequenceNum(), routeRequest.broadcastID, 0));
+            return;
+        }
+
+        // An intermediary node with a fresh enough route replies on behalf of the destination
+        int knownSequenceNum = receiver.forwardPath.destSequenceNumOf(destination);
+        if(knownSequenceNum != -1 && knownSequenceNum >= routeRequest.destSequenceNum) {
+            int hopCount = receiver.forwardPath.hopCountTo(destination);
+            sendRouteReply(discovery, receiver, new RouteReply(routeRequest.source, destination, knownSequenceNum, routeRequest.broadcastID, hopCount));
+
+            // Sending the gratuitous reply so that the destination also learns the route back to the source
+            RouteReply gratuitousReply = new RouteReply(destination, routeRequest.source, routeRequest.sourceSequenceNum, routeRequest.broadcastID, routeRequest.hopCount);
+            gratuitousReply.gratuitous = true;
+            send(gratuitousReply, receiver, receiver.forwardPath.nextHopTo(destination));
+            if(discovery != null) {
+                discovery.controlMessages++;
+            }
+            return;
+        }
+
+        broadcastRouteRequest(discovery, routeRequest, receiver, routeRequest.sender);
+    }
+
+    // Method for sending a copy of the rreq to every neighbour of the sender except the one it came from
+    private void broadcastRouteRequest(RouteDiscovery discovery, RouteRequest routeRequest, Node sender, Node previousHop) {
+        for(Node neighbour : graph.getNeighboursOf(sender)) {
+            if(neighbour.equals(previousHop)) {
+                continue;
+            }
+            RouteRequest copy = new RouteRequest(routeRequest.source, routeRequest.destination, routeRequest.sourceSequenceNum, routeRequest.destSequenceNum, routeRequest.broadcastID);
+            copy.hopCount = routeRequest.hopCount + 1;
+            send(copy, sender, neighbour);
+            if(discovery != null) {
+                discovery.controlMessages++;
+            }
+        }
+    }
+
+    private void sendRouteReply(RouteDiscovery discovery, Node sender, RouteReply routeReply) {
+        promoteReversePath(sender, routeReply.source);
+        Node nextHop = sender.reversePath.nextHopTo(routeReply.source);
+        if(nextHop != null) {
+            sender.forwardPath.addPrecursor(routeReply.destination, nextHop); // Only an intermediary node has a route to the destination
+        }
+        send(routeReply, sender, nextHop);
+        if(discovery != null) {
+            discovery.controlMessages++;
+        }
+    }
+
+    // Method for turning the reverse path of a node on the active route into a forward path, so the route can be used both ways
+    private void promoteReversePath(Node node, Node source) {
+        RoutingTable reversePath = node.getReversePathTo(source);
+        if(reversePath != null) {
+            node.forwardPath.update(source, reversePath.nextHop, reversePath.hopCount, reversePath.destSequenceNum);
+            lifetimes.activate(node.forwardPath, source);
+        }
+    }
+
+    private void receiveRouteReply(RouteReply routeReply) {
+        Node receiver = routeReply.receiver;
+
+        // Recording the forward path to the destination of the reply through the node it came from
+        routeReply.hopCount++;
+        receiver.forwardPath.update(routeReply.destination, routeReply.sender, routeReply.hopCount, routeReply.destSequenceNum);
+        lifetimes.activate(receiver.forwardPath, routeReply.destination);
+
+        RouteDiscovery discovery = discoveries.get(routeReply.broadcastID);
+        boolean gratuitous = routeReply.gratuitous; // Taken from the reply itself, its discovery may have timed out meanwhile
+        if(receiver.equals(routeReply.source)) {
+            if(discovery != null && !gratuitous && !discovery.isComplete() && !discovery.timedOut) {
+                discovery.completionTime = simulator.now();
+            }
+            return;
+        }
+
+        // Rreps travel back along the reverse path, gratuitous replies along the forward path to the rreq destination
+        if(!gratuitous) {
+            promoteReversePath(receiver, routeReply.source);
+        }
+        Node nextHop = gratuitous ? receiver.forwardPath.nextHopTo(routeReply.source) : receiver.reversePath.nextHopTo(routeReply.source);
+
+        // The node the reply is passed to forwards to the destination through the receiver, and the other way round for the source
+        if(nextHop != null) {
+            receiver.forwardPath.addPrecursor(routeReply.destination, nextHop);
+        }
+        receiver.forwardPath.addPrecursor(routeReply.source, routeReply.sender);
+        RouteReply copy = new RouteReply(routeReply.source, routeReply.destination, routeReply.destSequenceNum, routeReply.broadcastID, routeReply.hopCount);
+        copy.gratuitous = gratuitous;
+        send(copy, receiver, nextHop);
+        if(discovery != null) {
+            discovery.controlMessages++;
+        }
+    }
+
+    // Method for removing the routes of a node that go through a lost neighbour and reporting them with route errors
+    // to the precursors of each route, the neighbours that were forwarding through the node
+    private void invalidateRoutesVia(Node node, Node lostNeighbour) {
+        List<Node> unreachable = node.forwardPath.destinationsVia(lostNeighbour);
+        for(Node destination : unreachable) {
+            RoutingTable route = node.getForwardPathTo(destination);
+            node.forwardPath.remove(destination);
+            for(Node precursor : route.precursors) {
+                send(new RouteError(destination, route.destSequenceNum + 1), node, precursor);
+            }
+        }
+    }
+
+    private void receiveRouteError(RouteError routeError) {
+        Node receiver = routeError.receiver;
+
+        // Only nodes that were routing to the destination through the sender of the rerr lose the route and pass it on
+        if(!routeError.sender.equals(receiver.forwardPath.nextHopTo(routeError.destination))) {
+            return;
+        }
+        List<Node> precursors = receiver.forwardPath.precursorsOf(routeError.destination);
+        receiver.forwardPath.remove(routeError.destination);
+        for(Node precursor : precursors) {
+            send(new RouteError(routeError.destination, routeError.destSequenceNum), receiver, precursor);
+        }
+    }
+
+    // Method for scheduling the delivery of a message over the link from sender to receiver
+    private void send(ControlMessage message, Node sender, Node receiver) {
+        if(receiver == null || !graph.containsEdge(sender, receiver)) {
+            return; // The message is lost if there is no link to transmit it over
+        }
+        message.sender = sender;
+        message.receiver = receiver;
+        message.protocol = this;
+        controlMessagesSent++;
+        simulator.schedule(linkDelays.delayOf(sender, receiver), message);
+    }
+
+    public long getControlMessagesSent() {
+        return controlMessagesSent;
+    }
+
+    public long getExpiredRoutes() {
+        return expiredRoutes.sum();
+    }
+
+    // Method for getting the number of rreqs that were sent later than their discovery started because of the rate limit
+    public long getDelayedRequests() {
+        return delayedRequests;
+    }
+
+    public Simulator getSimulator() {
+        return simulator;
+    }
+}
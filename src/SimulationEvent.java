@@ -0,0 +1,5 @@
+// Something that happens at a point in simulated time, executed by the Simulator when the clock reaches it
+public interface SimulationEvent {
+
+    void fire(Simulator simulator);
+}
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+// A discrete event simulator with a simulated clock in microseconds
+// Events are kept in a binary heap backed by primitive arrays so that scheduling does not box or allocate per event
+// Events scheduled for the same time are fired in the order they were scheduled
+public class Simulator {
+
+    private long now; // The current simulated time
+    private long[] times; // The time of each event in the heap
+    private long[] orders; // The scheduling order of each event in the heap, used to break ties between equal times
+    private SimulationEvent[] events;
+    private int size;
+    private long scheduled; // The number of events scheduled so far
+    private long fired; // The number of events fired so far
+
+    public Simulator() {
+        this.now = 0;
+        this.times = new long[1024];
+        this.orders = new long[1024];
+        this.events = new SimulationEvent[1024];
+        this.size = 0;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    // Method for scheduling an event after a delay from the current time
+    public void schedule(long delay, SimulationEvent event) {
+        scheduleAt(now + delay, event);
+    }
+
+    // Method for scheduling an event at an absolute time, events in the past are fired at the current time
+    public void scheduleAt(long time, SimulationEvent event) {
+        if(size == events.length) {
+            times = Arrays.copyOf(times, size * 2);
+            orders = Arrays.copyOf(orders, size * 2);
+            events = Arrays.copyOf(events, size * 2);
+        }
+        time = Math.max(time, now);
+        long order = scheduled++;
+
+        // Sifting the new event up from the bottom of the heap
+        int index = size++;
+        while(index > 0) {
+            int parent = (index - 1) >>> 1;
+            if(!before(time, order, times[parent], orders[parent])) {
+                break;
+            }
+            move(parent, index);
+            index = parent;
+        }
+        set(index, time, order, event);
+    }
+
+    // Method for firing the next event, returns false if there are no events left
+    public boolean step() {
+        if(size == 0) {
+            return false;
+        }
+        long time = times[0];
+        SimulationEvent event = events[0];
+        removeFirst();
+        now = time; // Advancing the clock to the time of the event
+        fired++;
+        event.fire(this);
+        return true;
+    }
+
+    // Method for running until there are no events left
+    public void run() {
+        while(step()) {
+        }
+    }
+
+    // Method for running every event up to and including the given time, the clock ends at that time
+    public void runUntil(long time) {
+        while(size > 0 && times[0] <= time) {
+            step();
+        }
+        now = Math.max(now, time);
+    }
+
+    public int pendingEvents() {
+        return size;
+    }
+
+    public long firedEvents() {
+        return fired;
+    }
+
+    // Method for dropping every pending event and resetting the clock
+    public void reset() {
+        Arrays.fill(events, 0, size, null);
+        size = 0;
+        now = 0;
+        scheduled = 0;
+        fired = 0;
+    }
+
+    private void removeFirst() {
+        int last = --size;
+        long time = times[last];
+        long order = orders[last];
+        SimulationEvent event = events[last];
+        events[last] = null;
+        if(last == 0) {
+            return;
+        }
+
+        // Sifting the last event down from the top of the heap
+        int index = 0;
+        int half = last >>> 1;
+        while(index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if(right < last && before(times[right], orders[right], times[child], orders[child])) {
+                child = right;
+            }
+            if(!before(times[child], orders[child], time, order)) {
+                break;
+            }
+            move(child, index);
+            index = child;
+        }
+        set(index, time, order, event);
+    }
+
+    private static boolean before(long time, long order, long otherTime, long otherOrder) {
+        return time < otherTime || (time == otherTime && order < otherOrder);
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        orders[to] = orders[from];
+        events[to] = events[from];
+    }
+
+    private void set(int index, long time, long order, SimulationEvent event) {
+        times[index] = time;
+        orders[index] = order;
+        events[index] = event;
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+// A uniform grid over the positions of the nodes, used by GraphDisplay for finding the nodes in view or under the mouse
+// without checking every node of the graph
+// The grid is rebuilt as a whole whenever nodes are added, removed or moved
+public class SpatialIndex {
+    private static final int MIN_CELL_SIZE = 32; // Cells smaller than a node would only add empty cells to check
+
+    private Node[] nodes; // The nodes grouped by the cell they fall into
+    private int[] cellStart; // The nodes of cell c are nodes[cellStart[c]] up to nodes[cellStart[c + 1] - 1]
+    private int minX;
+    private int minY;
+    private int cellSize;
+    private int columns;
+    private int rows;
+
+    public SpatialIndex() {
+        rebuild(List.of());
+    }
+
+    // Method for rebuilding the grid for the current positions of the given nodes
+    public void rebuild(Collection<Node> all) {
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        for (Node node : all) {
+            minX = Math.min(minX, node.x);
+            minY = Math.min(minY, node.y);
+            maxX = Math.max(maxX, node.x);
+            maxY = Math.max(maxY, node.y);
+        }
+        if (all.isEmpty()) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // Sizing the cells so that a cell holds about two nodes when they are spread evenly
+        long width = (long) maxX - minX + 1, height = (long) maxY - minY + 1;
+        cellSize = (int) Math.max(MIN_CELL_SIZE, Math.ceil(Math.sqrt(2.0 * width * height / Math.max(all.size(), 1))));
+        columns = (int) (width / cellSize) + 1;
+        rows = (int) (height / cellSize) + 1;
+
+        // Counting the nodes of every cell first so that all nodes fit in one array sorted by cell
+        cellStart = new int[columns * rows + 1];
+        for (Node node : all) {
+            cellStart[cellOf(node.x, node.y) + 1]++;
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        nodes = new Node[all.size()];
+        int[] next = Arrays.copyOf(cellStart, columns * rows);
+        for (Node node : all) {
+            nodes[next[cellOf(node.x, node.y)]++] = node;
+        }
+    }
+
+    // Method for visiting the nodes whose positions lie in the given rectangle
+    public void forEachIn(int left, int top, int right, int bottom, Consumer<Node> action) {
+        int firstColumn = columnOf(left), lastColumn = columnOf(right);
+        int firstRow = rowOf(top), lastRow = rowOf(bottom);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    Node node = nodes[i];
+                    if (node.x >= left && node.x <= right && node.y >= top && node.y <= bottom) {
+                        action.accept(node);
+                    }
+                }
+            }
+        }
+    }
+
+    // Method for finding the node closest to a point within the given distance, returns null if there is none
+    public Node nearest(int x, int y, int maxDistance) {
+        Node nearest = null;
+        long nearestDistance = (long) maxDistance * maxDistance;
+        for (int row = rowOf(y - maxDistance); row <= rowOf(y + maxDistance); row++) {
+            for (int column = columnOf(x - maxDistance); column <= columnOf(x + maxDistance); column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    long dx = nodes[i].x - x, dy = nodes[i].y - y;
+                    if (dx * dx + dy * dy <= nearestDistance) {
+                        nearest = nodes[i];
+                        nearestDistance = dx * dx + dy * dy;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    private int cellOf(int x, int y) {
+        return rowOf(y) * columns + columnOf(x);
+    }
+
+    // Positions outside the grid are clamped to the border cells
+    private int columnOf(int x) {
+        return (int) Math.max(0, Math.min(columns - 1, ((long) x - minX) / cellSize));
+    }
+
+    private int rowOf(int y) {
+        return (int) Math.max(0, Math.min(rows - 1, ((long) y - minY) / cellSize));
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// A hierarchical timing wheel (Varghese and Lauck) for many timers that are mostly cancelled or pushed back before they fire
+// Time is counted in ticks of a fixed length, six levels of 64 slots each with a 64 times wider slot than the level below,
+// so scheduling and cancelling are constant time list operations whatever the deadline is
+// A timer far in the future waits in a wide slot and is moved down a level (cascaded) when the wheel reaches that slot,
+// so it is touched at most once per level before it fires
+// The wheel does not run by itself, advanceTo() fires everything that is due by the given time of whichever clock drives it
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;
+
+    private final long origin; // The time of tick 0
+    private final long tickLength; // In the unit of the clock, e.g. microseconds
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS]; // The first timer of the list in each slot
+    private final long[] occupied = new long[LEVELS]; // One bit per slot that holds timers, for skipping the empty ones
+    private volatile long currentTick; // Every timer due up to and including this tick has fired, read without the lock to skip early
+    private int size;
+
+    public TimingWheel(long tickLength, long startTime) {
+        this.origin = startTime;
+        this.tickLength = tickLength;
+        this.currentTick = 0;
+    }
+
+    // Method for scheduling a timer to fire at an absolute time, deadlines that already passed fire at the next advanceTo()
+    public synchronized void schedule(Timeout timeout, long deadline) {
+        if(timeout.level != -1) {
+            throw new IllegalStateException("The timer is already scheduled");
+        }
+        long elapsed = deadline - origin;
+        long tick = elapsed <= 0 ? 0 : (elapsed + tickLength - 1) / tickLength; // Rounding up so a timer never fires early
+        timeout.tick = Math.max(tick, currentTick + 1);
+        timeout.wheel = this;
+        add(timeout);
+        size++;
+    }
+
+    // Method for placing a timer in the slot of the highest level at which its tick differs from the current tick,
+    // the slot is then ahead of the current one on that level and gets cascaded exactly when the wheel reaches it
+    private void add(Timeout timeout) {
+        long difference = timeout.tick ^ currentTick;
+        int level = difference == 0 ? 0 : (63 - Long.numberOfLeadingZeros(difference)) / SLOT_BITS;
+        int slot;
+        if(level < LEVELS) {
+            slot = (int) (timeout.tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+        }
+        else {
+            // Beyond the range of the wheel the timer waits in the slot of the top level that is reached last and is placed again then
+            level = LEVELS - 1;
+            slot = (int) ((currentTick >>> (SLOT_BITS * level)) - 1) & (SLOTS - 1);
+        }
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.previous = null;
+        timeout.next = slots[level][slot];
+        if(timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        slots[level][slot] = timeout;
+        occupied[level] |= 1L << slot;
+    }
+
+    private void unlink(Timeout timeout) {
+        if(timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        }
+        else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+            if(timeout.next == null) {
+                occupied[timeout.level] &= ~(1L << timeout.slot);
+            }
+        }
+        if(timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.level = -1;
+        timeout.previous = null;
+        timeout.next = null;
+    }
+
+    // Method for removing a timer before it fires, returns false if it already fired or was not scheduled
+    public synchronized boolean cancel(Timeout timeout) {
+        if(timeout.level == -1) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    // Method for firing every timer due by the given time, returns the number of timers fired
+    // The tasks run after the wheel is unlocked, so they can schedule and cancel timers and take their own locks
+    public int advanceTo(long time) {
+        long targetTick = (time - origin) / tickLength;
+        if(targetTick <= currentTick) {
+            return 0; // Called again within the same tick, which the protocols do for every operation
+        }
+        List<Timeout> expired = null;
+        synchronized(this) {
+            while(currentTick < targetTick) {
+                if(size == 0) {
+                    currentTick = targetTick; // Nothing can fire on the way
+                    break;
+                }
+                long next = currentTick + 1;
+                if((next & (SLOTS - 1)) != 0) {
+                    // Jumping over the empty slots of the lowest level to the next timer or to the end of the rotation, where the next cascade is due
+                    long ahead = occupied[0] & (-1L << (next & (SLOTS - 1)));
+                    next = ahead != 0 ? (next & -SLOTS) + Long.numberOfTrailingZeros(ahead) : (next | (SLOTS - 1)) + 1;
+                    if(next > targetTick) {
+                        currentTick = targetTick;
+                        break;
+                    }
+                }
+                currentTick = next;
+                cascade();
+                Timeout timeout = slots[0][(int) currentTick & (SLOTS - 1)];
+                while(timeout != null) {
+                    Timeout following = timeout.next;
+                    unlink(timeout);
+                    size--;
+                    if(expired == null) {
+                        expired = new ArrayList<>();
+                    }
+                    expired.add(timeout);
+                    timeout = following;
+                }
+            }
+        }
+        if(expired == null) {
+            return 0;
+        }
+        for(Timeout timeout : expired) {
+            timeout.expire();
+        }
+        return expired.size();
+    }
+
+    // Method for moving the timers of the slots the current tick has just reached on the higher levels one or more levels down
+    private void cascade() {
+        for(int level = LEVELS - 1; level > 0; level--) {
+            if((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                continue; // The current tick is not at the start of a slot of this level
+            }
+            int slot = (int) (currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+            Timeout timeout = slots[level][slot];
+            slots[level][slot] = null;
+            occupied[level] &= ~(1L << slot);
+            while(timeout != null) {
+                Timeout following = timeout.next;
+                add(timeout);
+                timeout = following;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // A timer that expires once when the wheel passes its deadline, it can be scheduled again after it expired
+    // Users extend it with what has to happen, so a timer is a single object in the wheel
+    public abstract static class Timeout {
+
+        private TimingWheel wheel; // The wheel the timer was last scheduled in
+        private long tick;
+        private int level = -1; // -1 while the timer is not in the wheel
+        private int slot;
+        private Timeout previous;
+        private Timeout next;
+
+        protected abstract void expire();
+
+        public boolean cancel() {
+            return wheel != null && wheel.cancel(this);
+        }
+    }
+}
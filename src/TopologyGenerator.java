@@ -0,0 +1,204 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Builds synthetic topologies directly in memory for measuring how aodv behaves as networks grow in size and density
+// The same arguments and seed always produce the same graph, the nodes are named N0, N1, ... and every generator
+// runs in time linear in the number of nodes and edges so that graphs with millions of nodes can be built
+public class TopologyGenerator {
+
+    private static final int SPACING = 60; // The distance between neighbouring grid nodes on the screen
+
+    // Method for building a random geometric graph, nodes are placed uniformly in a square and every two nodes closer
+    // than the radio range are linked, the range is chosen so that nodes have the given number of neighbours on average
+    public static Graph unitDisk(int nodes, double averageDegree, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double range = Math.sqrt(averageDegree / (Math.PI * Math.max(nodes - 1, 1)));
+        Graph graph = new Graph();
+        graph.reserve(nodes, (int) Math.min(Integer.MAX_VALUE, (long) (nodes * averageDegree / 2)));
+
+        double[] x = new double[nodes];
+        double[] y = new double[nodes];
+        Node[] created = new Node[nodes];
+        double size = areaSize(nodes);
+        for (int i = 0; i < nodes; i++) {
+            x[i] = random.nextDouble();
+            y[i] = random.nextDouble();
+            created[i] = node(graph, i, 80 + x[i] * size, 50 + y[i] * size);
+        }
+
+        // Grouping the nodes into cells as wide as the range, so only the nodes of neighbouring cells have to be compared
+        int cells = (int) Math.max(1, Math.min(Math.floor(1 / range), Math.sqrt(nodes)));
+        int[] cellStart = new int[cells * cells + 1];
+        for (int i = 0; i < nodes; i++) {
+            cellStart[cellOf(x[i], y[i], cells) + 1]++;
+        }
+        for (int cell = 0; cell < cells * cells; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        int[] byCell = new int[nodes];
+        int[] next = Arrays.copyOf(cellStart, cells * cells);
+        for (int i = 0; i < nodes; i++) {
+            byCell[next[cellOf(x[i], y[i], cells)]++] = i;
+        }
+
+        double range2 = range * range;
+        for (int i = 0; i < nodes; i++) {
+            int column = (int) Math.min(cells - 1, x[i] * cells), row = (int) Math.min(cells - 1, y[i] * cells);
+            for (int r = Math.max(0, row - 1); r <= Math.min(cells - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(cells - 1, column + 1); c++) {
+                    int cell = r * cells + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int j = byCell[k];
+                        double dx = x[i] - x[j], dy = y[i] - y[j];
+                        if (j > i && dx * dx + dy * dy <= range2) { // Every pair is linked once, from its lower index
+                            graph.addEdge(created[i], created[j]);
+                        }
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    // Method for building a grid where every node is linked to the nodes above, below, left and right of it
+    public static Graph grid(int rows, int columns) {
+        Graph graph = new Graph();
+        int nodes = rows * columns;
+        graph.reserve(nodes, 2 * nodes);
+        Node[] created = new Node[nodes];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int i = row * columns + column;
+                created[i] = node(graph, i, 80 + column * SPACING, 50 + row * SPACING);
+                if (column > 0) {
+                    graph.addEdge(created[i - 1], created[i]);
+                }
+                if (row > 0) {
+                    graph.addEdge(created[i - columns], created[i]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    // Method for building an Erdos-Renyi graph where every pair of nodes is linked with the same probability
+    // Instead of drawing a random number for each of the n^2 / 2 pairs, the number of pairs skipped until the next edge
+    // is drawn from the geometric distribution (Batagelj and Brandes), so the time is linear in the number of edges
+    public static Graph erdosRenyi(int nodes, double averageDegree, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double probability = Math.min(1, averageDegree / Math.max(nodes - 1, 1));
+        Graph graph = new Graph();
+        graph.reserve(nodes, (int) Math.min(Integer.MAX_VALUE, (long) (nodes * averageDegree / 2)));
+        Node[] created = randomlyPlacedNodes(graph, nodes, random);
+        if (probability <= 0) {
+            return graph;
+        }
+
+        double logSkip = Math.log(1 - probability);
+        long v = 1, w = -1;
+        while (v < nodes) {
+            // The pairs (v, w) with w < v are visited in order and the gap to the next linked pair is geometric
+            w += 1 + (probability == 1 ? 0 : (long) Math.floor(Math.log(1 - random.nextDouble()) / logSkip));
+            while (w >= v && v < nodes) {
+                w -= v;
+                v++;
+            }
+            if (v < nodes) {
+                graph.addEdge(created[(int) v], created[(int) w]);
+            }
+        }
+        return graph;
+    }
+
+    // Method for building a scale free graph with the Barabasi-Albert model, every new node links to the given number of
+    // existing nodes, picked with a probability proportional to their degree so that a few hubs get most of the links
+    public static Graph scaleFree(int nodes, int edgesPerNode, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Graph graph = new Graph();
+        graph.reserve(nodes, (int) Math.min(Integer.MAX_VALUE, (long) nodes * edgesPerNode));
+        Node[] created = randomlyPlacedNodes(graph, nodes, random);
+
+        // Every edge adds both of its ends to this list, so picking a uniform entry picks a node proportional to its degree
+        int[] endpoints = new int[(int) Math.min(Integer.MAX_VALUE - 8, 2L * nodes * edgesPerNode)];
+        int endpointCount = 0;
+        int initial = Math.min(nodes, edgesPerNode + 1);
+        for (int i = 0; i < initial; i++) { // Starting with the first nodes linked to each other
+            for (int j = 0; j < i; j++) {
+                graph.addEdge(created[i], created[j]);
+                endpoints[endpointCount++] = i;
+                endpoints[endpointCount++] = j;
+            }
+        }
+
+        int[] targets = new int[edgesPerNode];
+        for (int i = initial; i < nodes; i++) {
+            int picked = 0;
+            while (picked < edgesPerNode) {
+                int target = endpoints[random.nextInt(endpointCount)];
+                boolean duplicate = false;
+                for (int t = 0; t < picked; t++) {
+                    duplicate |= targets[t] == target;
+                }
+                if (!duplicate) {
+                    targets[picked++] = target;
+                }
+            }
+            for (int t = 0; t < picked; t++) {
+                graph.addEdge(created[i], created[targets[t]]);
+                endpoints[endpointCount++] = i;
+                endpoints[endpointCount++] = targets[t];
+            }
+        }
+        return graph;
+    }
+
+    // Method for building a graph from a specification such as grid:100:100, unit-disk:100000:8:42,
+    // erdos-renyi:100000:8:42 or scale-free:100000:3:42, where the last number is the seed and defaults to 1
+    public static Graph fromSpecification(String specification) {
+        String[] parts = specification.split(":");
+        try {
+            long seed = parts.length > 3 ? Long.parseLong(parts[3]) : 1;
+            switch (parts[0]) {
+                case "grid":
+                    return grid(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                case "unit-disk":
+                    return unitDisk(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]), seed);
+                case "erdos-renyi":
+                    return erdosRenyi(Integer.parseInt(parts[1]), Double.parseDouble(parts[2]), seed);
+                case "scale-free":
+                    return scaleFree(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), seed);
+                default:
+                    throw new IllegalArgumentException("Unknown topology generator '" + parts[0] + "'");
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed topology specification '" + specification + "'", e);
+        }
+    }
+
+    private static Node[] randomlyPlacedNodes(Graph graph, int nodes, SplittableRandom random) {
+        Node[] created = new Node[nodes];
+        double size = areaSize(nodes);
+        for (int i = 0; i < nodes; i++) {
+            created[i] = node(graph, i, 80 + random.nextDouble() * size, 50 + random.nextDouble() * size);
+        }
+        return created;
+    }
+
+    // Method for creating a node at a position, the position is set here so that it does not depend on the unseeded Node constructor
+    private static Node node(Graph graph, int index, double x, double y) {
+        Node node = new Node("N" + index);
+        node.x = (int) x;
+        node.y = (int) y;
+        graph.addNode(node);
+        return node;
+    }
+
+    // The side of the square the nodes are placed in, keeping about as much room per node as the default graph has
+    private static double areaSize(int nodes) {
+        return 400 * Math.max(1, Math.sqrt(nodes / 10.0));
+    }
+
+    private static int cellOf(double x, double y, int cells) {
+        return (int) Math.min(cells - 1, y * cells) * cells + (int) Math.min(cells - 1, x * cells);
+    }
+}
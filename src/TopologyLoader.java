@@ -0,0 +1,310 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+// Loads edge list topology files into a graph in a single streaming pass over the bytes of the file
+// Every line holds a source and a destination identifier separated by spaces or tabs, optionally followed by attributes
+// of the link such as delay=<microseconds> or just a number for the delay, and everything after a # is a comment
+// A line with a single identifier adds a node without edges, gzip compressed files are recognized by their header
+// Identifiers are looked up by their bytes, so a String is only created the first time an identifier is seen
+public class TopologyLoader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Graph graph;
+    private LinkDelays linkDelays; // Receives the delay attributes of the links, they are only validated if this is null
+
+    // Open addressing table from identifier bytes to node, entry e has its bytes in keyBytes[keyOffsets[e]] onwards
+    private int[] slots; // Entry index + 1 for every slot, 0 for empty slots
+    private int entryCount;
+    private byte[] keyBytes;
+    private int keyBytesUsed;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private int[] keyHashes;
+    private Node[] entryNodes;
+
+    // Start and end of the tokens of the line being parsed
+    private int[] tokenStarts = new int[8];
+    private int[] tokenEnds = new int[8];
+
+    public TopologyLoader(Graph graph) {
+        this.graph = graph;
+    }
+
+    public void setLinkDelays(LinkDelays linkDelays) {
+        this.linkDelays = linkDelays;
+    }
+
+    // Method for loading a topology file, which may be gzip compressed or a binary snapshot written by GraphSnapshot
+    public LoadReport load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(GraphSnapshot.MAGIC.length);
+            channel.read(header, 0); // Reading the header without moving the position of the channel
+            if (GraphSnapshot.isSnapshot(header.array(), header.position())) {
+                return GraphSnapshot.read(graph, file);
+            }
+            if (isGzip(header.array(), header.position())) {
+                // Closing the gzip channel closes the inflater and the stream over the file channel along with it
+                try (ReadableByteChannel gzipChannel = Channels.newChannel(new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE))) {
+                    return load(gzipChannel, true);
+                }
+            }
+            return load(channel, false);
+        }
+    }
+
+    // Method for loading a topology from a stream, which may be gzip compressed, the stream is closed afterwards
+    public LoadReport load(InputStream inputStream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        buffered.mark(2);
+        byte[] header = buffered.readNBytes(2);
+        buffered.reset();
+        boolean gzip = isGzip(header, header.length);
+        try (ReadableByteChannel channel = Channels.newChannel(gzip ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered)) {
+            return load(channel, gzip);
+        }
+    }
+
+    private static boolean isGzip(byte[] header, int length) {
+        return length >= 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B;
+    }
+
+    // Method for reading the channel in blocks and parsing every complete line in the block
+    // The incomplete line at the end of a block is moved to the front of the buffer, which grows for lines longer than it
+    private LoadReport load(ReadableByteChannel channel, boolean gzip) throws IOException {
+        LoadReport report = new LoadReport();
+        report.gzip = gzip;
+        long start = System.nanoTime();
+        int edgesBefore = graph.getEdges().size();
+        resetIdentifiers();
+
+        byte[] bytes = new byte[BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            int read = channel.read(buffer);
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                report.bytes += read;
+            }
+
+            int end = buffer.position();
+            int lineStart = 0;
+            for (int i = 0; i < end; i++) {
+                if (bytes[i] == '\n') {
+                    parseLine(bytes, lineStart, i, report);
+                    lineStart = i + 1;
+                }
+            }
+            if (endOfInput && lineStart < end) {
+                parseLine(bytes, lineStart, end, report); // The last line has no line break
+                lineStart = end;
+            }
+
+            // Keeping the incomplete line for the next block
+            int remaining = end - lineStart;
+            if (remaining == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+                buffer = ByteBuffer.wrap(bytes);
+            } else {
+                System.arraycopy(bytes, lineStart, bytes, 0, remaining);
+            }
+            buffer.position(remaining);
+        }
+
+        report.edgesAdded = graph.getEdges().size() - edgesBefore;
+        report.elapsedNanos = System.nanoTime() - start;
+        entryNodes = null; // Not holding on to the nodes once the graph has them
+        return report;
+    }
+
+    private void parseLine(byte[] bytes, int start, int end, LoadReport report) {
+        report.lines++;
+
+        // Splitting the line into tokens up to the comment
+        int tokens = 0;
+        int i = start;
+        while (i < end && bytes[i] != '#') {
+            byte b = bytes[i];
+            if (b == ' ' || b == '\t' || b == '\r') {
+                i++;
+                continue;
+            }
+            if (tokens == tokenStarts.length) {
+                tokenStarts = Arrays.copyOf(tokenStarts, 2 * tokens);
+                tokenEnds = Arrays.copyOf(tokenEnds, 2 * tokens);
+            }
+            tokenStarts[tokens] = i;
+            while (i < end && bytes[i] != ' ' && bytes[i] != '\t' && bytes[i] != '\r' && bytes[i] != '#') {
+                i++;
+            }
+            tokenEnds[tokens++] = i;
+        }
+
+        if (tokens == 0) {
+            report.commentLines++;
+            return;
+        }
+
+        // Checking all attributes before changing the graph so that a malformed line changes nothing
+        long delay = -1;
+        for (int t = 2; t < tokens; t++) {
+            int equals = indexOf(bytes, tokenStarts[t], tokenEnds[t], (byte) '=');
+            if (equals == -1) {
+                delay = parseNumber(bytes, tokenStarts[t], tokenEnds[t]); // A plain number is the delay of the link
+            } else if (matches(bytes, tokenStarts[t], equals, "delay")) {
+                delay = parseNumber(bytes, equals + 1, tokenEnds[t]);
+            } else if (equals == tokenStarts[t] || equals == tokenEnds[t] - 1) {
+                delay = -2; // Keys and values can not be empty
+            } else {
+                report.ignoredAttributes++;
+                continue;
+            }
+            if (delay < 0) {
+                malformed(report);
+                return;
+            }
+        }
+
+        Node source = nodeOf(bytes, tokenStarts[0], tokenEnds[0], report);
+        if (tokens == 1) {
+            return;
+        }
+        Node destination = nodeOf(bytes, tokenStarts[1], tokenEnds[1], report);
+        graph.addEdge(source, destination); // Creating the edge between the source and destination
+        report.edgeLines++;
+        if (delay >= 0 && linkDelays != null) {
+            linkDelays.setPropagationDelay(source, destination, delay);
+        }
+    }
+
+    private static void malformed(LoadReport report) {
+        report.malformedLines++;
+        if (report.firstMalformedLine == -1) {
+            report.firstMalformedLine = report.lines;
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int start, int end, byte b) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] bytes, int start, int end, String key) {
+        if (end - start != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (bytes[start + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Method for parsing a non-negative decimal number without creating a String, returns -1 if it is not one
+    private static long parseNumber(byte[] bytes, int start, int end) {
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    // Method for getting the node of an identifier, creating it and adding it to the graph the first time it is seen
+    private Node nodeOf(byte[] bytes, int start, int end, LoadReport report) {
+        int length = end - start;
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        hash *= 0x9E3779B9; // Spreading identifiers that only differ in their last characters over the table
+        hash ^= hash >>> 16;
+
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry == -1) {
+                return addIdentifier(bytes, start, length, hash, slot, report);
+            }
+            if (keyHashes[entry] == hash && keyLengths[entry] == length
+                    && Arrays.equals(keyBytes, keyOffsets[entry], keyOffsets[entry] + length, bytes, start, end)) {
+                return entryNodes[entry];
+            }
+        }
+    }
+
+    private Node addIdentifier(byte[] bytes, int start, int length, int hash, int slot, LoadReport report) {
+        String identifier = new String(bytes, start, length, StandardCharsets.UTF_8);
+        Node node = graph.getNode(identifier); // The node may already be in the graph from an earlier load
+        if (node == null) {
+            node = new Node(identifier);
+            graph.addNode(node);
+            report.nodesAdded++;
+        }
+
+        if (entryCount == entryNodes.length) {
+            int capacity = 2 * entryCount;
+            keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+            keyLengths = Arrays.copyOf(keyLengths, capacity);
+            keyHashes = Arrays.copyOf(keyHashes, capacity);
+            entryNodes = Arrays.copyOf(entryNodes, capacity);
+        }
+        if (keyBytesUsed + length > keyBytes.length) {
+            keyBytes = Arrays.copyOf(keyBytes, Math.max(2 * keyBytes.length, keyBytesUsed + length));
+        }
+        System.arraycopy(bytes, start, keyBytes, keyBytesUsed, length);
+        keyOffsets[entryCount] = keyBytesUsed;
+        keyLengths[entryCount] = length;
+        keyHashes[entryCount] = hash;
+        entryNodes[entryCount] = node;
+        keyBytesUsed += length;
+        slots[slot] = ++entryCount;
+
+        // Keeping the table at most half full
+        if (2 * entryCount > slots.length) {
+            slots = new int[2 * slots.length];
+            int mask = slots.length - 1;
+            for (int entry = 0; entry < entryCount; entry++) {
+                int s = keyHashes[entry] & mask;
+                while (slots[s] != 0) {
+                    s = (s + 1) & mask;
+                }
+                slots[s] = entry + 1;
+            }
+        }
+        return node;
+    }
+
+    private void resetIdentifiers() {
+        slots = new int[1024];
+        entryCount = 0;
+        keyBytes = new byte[8192];
+        keyBytesUsed = 0;
+        keyOffsets = new int[512];
+        keyLengths = new int[512];
+        keyHashes = new int[512];
+        entryNodes = new Node[512];
+    }
+}